@@ -0,0 +1,7 @@
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncPaymentProcessor {
+    // completes normally once the charge is settled and exceptionally when it is declined or rejected;
+    // a PaymentOutcomeUnknownException means the charge may still settle and must not simply be retried
+    CompletableFuture<Void> processPaymentAsync(double charge);
+}
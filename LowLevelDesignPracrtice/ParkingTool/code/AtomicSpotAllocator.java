@@ -0,0 +1,120 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Lock-free allocator: a spot is claimed by a CAS from FREE to OCCUPIED.
+// Spots are split into stripes (one per floor) with their own free counter and
+// search cursor, so gates starting on different floors rarely touch the same cache lines.
+public class AtomicSpotAllocator implements SpotAllocator {
+    private static final int FREE = 0;
+    private static final int OCCUPIED = 1;
+    // cursors are spread 16 ints apart so floors do not share a cache line
+    private static final int CURSOR_STRIDE = 16;
+
+    private final AtomicIntegerArray states;
+    private final int stripeSize;
+    private final AtomicInteger[] freeCounts;
+    private final int[] cursors;
+
+    AtomicSpotAllocator(int capacity, int stripes) {
+        if (capacity < 0 || stripes <= 0) {
+            throw new IllegalArgumentException("capacity must be >= 0 and stripes > 0");
+        }
+        this.states = new AtomicIntegerArray(capacity);
+        this.stripeSize = Math.max(1, (capacity + stripes - 1) / stripes);
+        int stripeCount = Math.max(1, (capacity + stripeSize - 1) / stripeSize);
+        this.freeCounts = new AtomicInteger[stripeCount];
+        this.cursors = new int[stripeCount * CURSOR_STRIDE];
+        for (int s = 0; s < stripeCount; s++) {
+            freeCounts[s] = new AtomicInteger(stripeEnd(s) - stripeStart(s));
+        }
+    }
+
+    @Override
+    public int allocate() {
+        int stripeCount = freeCounts.length;
+        // each gate thread starts on its own home floor and only moves on when that floor is full
+        int first = (int) (Thread.currentThread().threadId() % stripeCount);
+        for (int n = 0; n < stripeCount; n++) {
+            int stripe = (first + n) % stripeCount;
+            int spotIndex = allocateInStripe(stripe);
+            if (spotIndex >= 0) {
+                return spotIndex;
+            }
+        }
+        return -1;
+    }
+
+    private int allocateInStripe(int stripe) {
+        AtomicInteger free = freeCounts[stripe];
+        // reserve a unit of the stripe's free count first so a full stripe is skipped without scanning
+        int available;
+        do {
+            available = free.get();
+            if (available == 0) {
+                return -1;
+            }
+        } while (!free.compareAndSet(available, available - 1));
+
+        int start = stripeStart(stripe);
+        int size = stripeEnd(stripe) - start;
+        int offset = cursors[stripe * CURSOR_STRIDE];
+        // a reserved unit guarantees a FREE spot exists in this stripe, keep scanning until we win one
+        while (true) {
+            for (int n = 0; n < size; n++) {
+                int spotIndex = start + (offset + n) % size;
+                if (states.get(spotIndex) == FREE && states.compareAndSet(spotIndex, FREE, OCCUPIED)) {
+                    cursors[stripe * CURSOR_STRIDE] = (spotIndex - start + 1) % size; // racy hint, only affects where the next scan starts
+                    return spotIndex;
+                }
+            }
+            // lost every race in this pass, the spot our unit stands for is still being freed: back off before rescanning
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public boolean release(int spotIndex) {
+        if (spotIndex < 0 || spotIndex >= states.length() || !states.compareAndSet(spotIndex, OCCUPIED, FREE)) {
+            return false;
+        }
+        freeCounts[stripeOf(spotIndex)].incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public boolean hasFree() {
+        for (AtomicInteger free : freeCounts) {
+            if (free.get() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int freeCount() {
+        int total = 0;
+        for (AtomicInteger free : freeCounts) {
+            total += free.get();
+        }
+        return total;
+    }
+
+    @Override
+    public int capacity() {
+        return states.length();
+    }
+
+    public int stripeOf(int spotIndex) {
+        return spotIndex / stripeSize;
+    }
+
+    private int stripeStart(int stripe) {
+        return stripe * stripeSize;
+    }
+
+    private int stripeEnd(int stripe) {
+        return Math.min(states.length(), (stripe + 1) * stripeSize);
+    }
+
+}
@@ -0,0 +1,26 @@
+import java.time.Clock;
+
+// Prices and settles a burst of tickets (shift change, event egress) as one batch:
+// one pricing pass over primitive arrays and one settlement call to the payment processor.
+public class BatchCheckout {
+    private final VehiclePricingStrategy pricingStrategy;
+    private final PaymenyStrategy paymentStrategy;
+    private final Clock clock;
+
+    BatchCheckout(VehiclePricingStrategy pricingStrategy, PaymenyStrategy paymentStrategy, Clock clock) {
+        this.pricingStrategy = pricingStrategy;
+        this.paymentStrategy = paymentStrategy;
+        this.clock = clock;
+    }
+
+    // returns the charge of every ticket in minor units, in the same order as the tickets
+    public long[] checkout(Ticket[] tickets) {
+        long[] prices = pricingStrategy.calculatePrices(tickets, clock.millis());
+        paymentStrategy.processPayments(prices, prices.length);
+        for (Ticket ticket : tickets) {
+            ticket.setPaid(true);
+        }
+        return prices;
+    }
+
+}
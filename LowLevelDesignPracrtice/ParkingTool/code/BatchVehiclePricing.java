@@ -0,0 +1,5 @@
+// Pricing that can work on a whole batch of checkouts laid out as primitive arrays.
+public interface BatchVehiclePricing {
+    // prices[i] in minor units for a stay from entryEpochMillis[i] to exitEpochMillis
+    void priceBatch(long[] entryEpochMillis, int[] vehicleTypeOrdinals, int count, long exitEpochMillis, long[] prices);
+}
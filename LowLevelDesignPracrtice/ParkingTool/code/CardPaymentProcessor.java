@@ -4,4 +4,13 @@ public class CardPaymentProcessor implements PaymentProcessor {
         System.out.println("Processing card payment of " + charge);
     }
 
+    @Override
+    public void processPayments(long[] chargesInMinorUnits, int count) {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += chargesInMinorUnits[i];
+        }
+        System.out.println("Processing card settlement of " + count + " payments, total " + total / 100.0);
+    }
+
 }
@@ -0,0 +1,178 @@
+// A Tariff turned into per-vehicle-type tables over the 168 hours of a week (slot 0 = Monday 00:00).
+// A stay is walked one segment at a time, where a segment is a run of hours with no midnight and
+// no day/night change inside it. Each segment costs one prefix-sum subtraction, so a multi-day stay
+// costs O(segments) instead of a walk over every hour or minute.
+// Without a night cap or daily maximum no segment depends on the one before, and the price is
+// closed form: tier hours + full weeks + one cyclic prefix-sum range. priceBatch uses that in a
+// branch-free loop and only walks segments for vehicle types that have caps.
+class CompiledTariff {
+    private static final int HOURS_PER_DAY = 24;
+    private static final int HOURS_PER_WEEK = 7 * HOURS_PER_DAY;
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    // 1970-01-01 was a Thursday, shift so that slot 0 is Monday
+    private static final long EPOCH_HOUR_TO_WEEK_SLOT = 3 * HOURS_PER_DAY;
+
+    private final long offsetMillis;
+    private final VehicleTable[] tables = new VehicleTable[VehicleType.values().length];
+    // the closed form of every vehicle type as flat primitive arrays indexed by ordinal, for priceBatch;
+    // walkOnly marks types with caps (or without rates) that need the segment walk
+    private final long[] cyclicPrefix = new long[VehicleType.values().length * (2 * HOURS_PER_WEEK + 1)];
+    private final long[] weekTotal = new long[VehicleType.values().length];
+    private final long[] firstHours = new long[VehicleType.values().length];
+    private final long[] firstHoursRate = new long[VehicleType.values().length];
+    private final boolean[] walkOnly = new boolean[VehicleType.values().length];
+
+    CompiledTariff(Tariff tariff) {
+        this.offsetMillis = tariff.getZoneOffset().getTotalSeconds() * 1000L;
+        boolean[] night = new boolean[HOURS_PER_WEEK];
+        for (int slot = 0; slot < HOURS_PER_WEEK; slot++) {
+            night[slot] = isNight(slot % HOURS_PER_DAY, tariff.getNightStartHour(), tariff.getNightEndHour());
+        }
+        int[] segmentLength = new int[HOURS_PER_WEEK];
+        for (int slot = HOURS_PER_WEEK - 1; slot >= 0; slot--) {
+            int next = slot + 1;
+            boolean boundary = next == HOURS_PER_WEEK || next % HOURS_PER_DAY == 0 || night[next] != night[slot];
+            segmentLength[slot] = boundary ? 1 : segmentLength[next] + 1;
+        }
+        for (VehicleType type : VehicleType.values()) {
+            Tariff.Rates rates = tariff.getRates(type);
+            int t = type.ordinal();
+            if (rates == null) {
+                walkOnly[t] = true;
+                continue;
+            }
+            VehicleTable table = new VehicleTable(rates, night, segmentLength);
+            tables[t] = table;
+            walkOnly[t] = table.capped;
+            int base = t * (2 * HOURS_PER_WEEK + 1);
+            for (int slot = 0; slot < 2 * HOURS_PER_WEEK; slot++) {
+                cyclicPrefix[base + slot + 1] = cyclicPrefix[base + slot] + table.rate(slot % HOURS_PER_WEEK);
+            }
+            weekTotal[t] = table.prefix[HOURS_PER_WEEK];
+            firstHours[t] = rates.getFirstHours();
+            firstHoursRate[t] = rates.getFirstHoursRate();
+        }
+    }
+
+    long price(VehicleType vehicleType, long entryEpochMillis, long exitEpochMillis) {
+        VehicleTable table = tables[vehicleType.ordinal()];
+        if (table == null) {
+            throw new IllegalArgumentException("tariff has no rates for " + vehicleType);
+        }
+        long hours = hours(entryEpochMillis, exitEpochMillis);
+        int firstSlot = firstSlot(entryEpochMillis);
+        return table.capped ? table.price(firstSlot, hours) : closedForm(vehicleType.ordinal(), firstSlot, hours);
+    }
+
+    // pass 1 prices every stay with the closed form, straight-line arithmetic over primitive arrays;
+    // pass 2 re-prices only the stays of vehicle types with caps by walking their segments
+    void priceBatch(long[] entryEpochMillis, int[] vehicleTypeOrdinals, int count, long exitEpochMillis, long[] prices) {
+        for (int i = 0; i < count; i++) {
+            prices[i] = closedForm(vehicleTypeOrdinals[i], firstSlot(entryEpochMillis[i]),
+                    hours(entryEpochMillis[i], exitEpochMillis));
+        }
+        VehicleType[] types = VehicleType.values();
+        for (int i = 0; i < count; i++) {
+            if (walkOnly[vehicleTypeOrdinals[i]]) {
+                prices[i] = price(types[vehicleTypeOrdinals[i]], entryEpochMillis[i], exitEpochMillis);
+            }
+        }
+    }
+
+    private long closedForm(int vehicleTypeOrdinal, int firstSlot, long hours) {
+        long tierHours = Math.min(hours, firstHours[vehicleTypeOrdinal]);
+        long rest = hours - tierHours;
+        int start = (int) ((firstSlot + tierHours) % HOURS_PER_WEEK);
+        int base = vehicleTypeOrdinal * (2 * HOURS_PER_WEEK + 1) + start;
+        return tierHours * firstHoursRate[vehicleTypeOrdinal] + rest / HOURS_PER_WEEK * weekTotal[vehicleTypeOrdinal]
+                + cyclicPrefix[base + (int) (rest % HOURS_PER_WEEK)] - cyclicPrefix[base];
+    }
+
+    private static long hours(long entryEpochMillis, long exitEpochMillis) {
+        long minutes = Math.max(0, exitEpochMillis - entryEpochMillis) / MILLIS_PER_MINUTE;
+        return (minutes + 59) / 60;
+    }
+
+    private int firstSlot(long entryEpochMillis) {
+        return (int) Math.floorMod(Math.floorDiv(entryEpochMillis + offsetMillis, MILLIS_PER_HOUR)
+                + EPOCH_HOUR_TO_WEEK_SLOT, (long) HOURS_PER_WEEK);
+    }
+
+    private static boolean isNight(int hour, int startHour, int endHour) {
+        if (startHour == endHour) {
+            return false;
+        }
+        if (startHour < endHour) {
+            return hour >= startHour && hour < endHour;
+        }
+        return hour >= startHour || hour < endHour;
+    }
+
+    private static class VehicleTable {
+        private final long[] prefix = new long[HOURS_PER_WEEK + 1];
+        private final boolean[] night;
+        private final int[] segmentLength;
+        private final int firstHours;
+        private final long firstHoursRate;
+        private final long nightCap;
+        private final long dailyMax;
+        private final boolean capped;
+
+        VehicleTable(Tariff.Rates rates, boolean[] night, int[] segmentLength) {
+            this.night = night;
+            this.segmentLength = segmentLength;
+            this.firstHours = rates.getFirstHours();
+            this.firstHoursRate = rates.getFirstHoursRate();
+            this.nightCap = rates.getNightCap();
+            this.dailyMax = rates.getDailyMax();
+            this.capped = nightCap > 0 || dailyMax > 0;
+            for (int slot = 0; slot < HOURS_PER_WEEK; slot++) {
+                boolean weekend = slot / HOURS_PER_DAY >= 5;
+                long rate = night[slot] ? rates.getNightRate() : weekend ? rates.getWeekendRate() : rates.getDayRate();
+                prefix[slot + 1] = prefix[slot] + rate;
+            }
+        }
+
+        long rate(int slot) {
+            return prefix[slot + 1] - prefix[slot];
+        }
+
+        long price(int firstSlot, long hours) {
+            long total = 0;
+            long chargedToday = 0;
+            long chargedThisNight = 0;
+            long hour = 0;
+            int slot = firstSlot;
+            while (hour < hours) {
+                int length = (int) Math.min(segmentLength[slot], hours - hour);
+                // hours of this segment still inside the first-hours tier use the tier rate
+                int tierHours = (int) Math.max(0, Math.min(length, firstHours - hour));
+                long cost = tierHours * firstHoursRate + prefix[slot + length] - prefix[slot + tierHours];
+
+                if (!night[slot]) {
+                    chargedThisNight = 0;
+                } else if (nightCap > 0) {
+                    cost = Math.min(cost, nightCap - chargedThisNight);
+                    chargedThisNight += cost;
+                }
+                if (dailyMax > 0) {
+                    cost = Math.min(cost, dailyMax - chargedToday);
+                    chargedToday += cost;
+                }
+                total += cost;
+
+                hour += length;
+                slot += length;
+                if (slot == HOURS_PER_WEEK) {
+                    slot = 0;
+                }
+                if (slot % HOURS_PER_DAY == 0) {
+                    chargedToday = 0;
+                }
+            }
+            return total;
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+import java.util.EnumMap;
+import java.util.Map;
+
+// Thread-safe variant of Parking for many entry/exit gates.
+// Spots are claimed with CAS per VehicleType and floor, there is no global lock.
+public class ConcurrentParking {
+    private final Map<VehicleType, AtomicSpotAllocator> allocators = new EnumMap<>(VehicleType.class);
+    private final ParkingIndex parkingIndex;
+
+    ConcurrentParking(Map<VehicleType, Integer> capacities, int floors) {
+        for (Map.Entry<VehicleType, Integer> entry : capacities.entrySet()) {
+            allocators.put(entry.getKey(), new AtomicSpotAllocator(entry.getValue(), floors));
+        }
+        this.parkingIndex = new ParkingIndex(capacities);
+    }
+
+    public boolean parkVehicle(Vehicle vehicle) {
+        return issueTicket(vehicle) != null;
+    }
+
+    public Ticket issueTicket(Vehicle vehicle) {
+        AtomicSpotAllocator allocator = allocators.get(vehicle.getVehicleType());
+        int spotIndex = allocator.allocate();
+        if (spotIndex < 0) {
+            return null;
+        }
+        Spot spot = new Spot(allocator.stripeOf(spotIndex), spotIndex, vehicle.getVehicleType());
+        Ticket ticket = parkingIndex.register(vehicle, spot, System.currentTimeMillis());
+        if (ticket == null) {
+            // the same vehicle is already parked, give the spot back
+            allocator.release(spotIndex);
+            return null;
+        }
+        return ticket;
+    }
+
+    public boolean unParkVehicle(Vehicle vehicle) {
+        return release(parkingIndex.removeByPlate(vehicle.getLicensePlate())) != null;
+    }
+
+    public Ticket exit(String ticketNumber) {
+        return release(parkingIndex.removeByTicketNumber(ticketNumber));
+    }
+
+    public Spot findSpot(String licensePlate) {
+        Ticket ticket = parkingIndex.findByPlate(licensePlate);
+        return ticket == null ? null : ticket.getSpot();
+    }
+
+    private Ticket release(Ticket ticket) {
+        if (ticket == null) {
+            return null;
+        }
+        Spot spot = ticket.getSpot();
+        allocators.get(spot.getVehicleType()).release(spot.getIndex());
+        return ticket;
+    }
+
+    public boolean checkAvailability(VehicleType vehicleType) {
+        return allocators.get(vehicleType).hasFree();
+    }
+
+    public int freeSpots(VehicleType vehicleType) {
+        return allocators.get(vehicleType).freeCount();
+    }
+
+}
@@ -0,0 +1,56 @@
+import java.util.List;
+
+// Keeps the indexes of FREE spots on a stack so allocate and release are O(1)
+// instead of scanning the spot list from index 0 on every call.
+public class FreeListSpotAllocator implements SpotAllocator {
+    private final List<SpotStatus> spots;
+    private final int[] freeSpots;
+    private int freeTop;
+
+    FreeListSpotAllocator(List<SpotStatus> spots) {
+        this.spots = spots;
+        this.freeSpots = new int[spots.size()];
+        // push in reverse so the lowest index is handed out first, like the old scan
+        for (int i = spots.size() - 1; i >= 0; i--) {
+            if (spots.get(i) == SpotStatus.FREE) {
+                freeSpots[freeTop++] = i;
+            }
+        }
+    }
+
+    @Override
+    public int allocate() {
+        if (freeTop == 0) {
+            return -1;
+        }
+        int spotIndex = freeSpots[--freeTop];
+        spots.set(spotIndex, SpotStatus.OCCUPIED);
+        return spotIndex;
+    }
+
+    @Override
+    public boolean release(int spotIndex) {
+        if (spotIndex < 0 || spotIndex >= spots.size() || spots.get(spotIndex) != SpotStatus.OCCUPIED) {
+            return false;
+        }
+        spots.set(spotIndex, SpotStatus.FREE);
+        freeSpots[freeTop++] = spotIndex;
+        return true;
+    }
+
+    @Override
+    public boolean hasFree() {
+        return freeTop > 0;
+    }
+
+    @Override
+    public int freeCount() {
+        return freeTop;
+    }
+
+    @Override
+    public int capacity() {
+        return spots.size();
+    }
+
+}
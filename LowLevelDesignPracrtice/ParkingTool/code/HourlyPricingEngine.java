@@ -0,0 +1,55 @@
+import java.time.Clock;
+
+// Hourly pricing on primitives: entry and exit are epoch millis from an injected Clock,
+// rates are minor currency units (cents) in an array indexed by VehicleType ordinal.
+// Pricing a checkout allocates nothing and has no floating point rounding.
+public class HourlyPricingEngine implements VehiclePricing, BatchVehiclePricing {
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final long MINUTES_PER_HOUR = 60L;
+
+    private final Clock clock;
+    private final long[] hourlyRateMinor = new long[VehicleType.values().length];
+
+    HourlyPricingEngine(Clock clock) {
+        this.clock = clock;
+        setHourlyRate(VehicleType.CAR, 1000);
+        setHourlyRate(VehicleType.BIKE, 500);
+        setHourlyRate(VehicleType.TRUCK, 1500);
+    }
+
+    public void setHourlyRate(VehicleType vehicleType, long rateInMinorUnits) {
+        hourlyRateMinor[vehicleType.ordinal()] = rateInMinorUnits;
+    }
+
+    public long priceInMinorUnits(Ticket ticket) {
+        return priceInMinorUnits(ticket.getVehicle().getVehicleType(), ticket.getEntryEpochMillis(), clock.millis());
+    }
+
+    // same rounding as HourlyVehiclePricing: whole minutes, then every started hour is charged
+    public long priceInMinorUnits(VehicleType vehicleType, long entryEpochMillis, long exitEpochMillis) {
+        long minutes = Math.max(0, exitEpochMillis - entryEpochMillis) / MILLIS_PER_MINUTE;
+        long hours = (minutes + MINUTES_PER_HOUR - 1) / MINUTES_PER_HOUR;
+        return hours * hourlyRateMinor[vehicleType.ordinal()];
+    }
+
+    // branch-free loop over primitive arrays so the JIT can unroll it
+    @Override
+    public void priceBatch(long[] entryEpochMillis, int[] vehicleTypeOrdinals, int count, long exitEpochMillis,
+            long[] prices) {
+        for (int i = 0; i < count; i++) {
+            long minutes = Math.max(0, exitEpochMillis - entryEpochMillis[i]) / MILLIS_PER_MINUTE;
+            prices[i] = (minutes + MINUTES_PER_HOUR - 1) / MINUTES_PER_HOUR * hourlyRateMinor[vehicleTypeOrdinals[i]];
+        }
+    }
+
+    @Override
+    public double calculatePrice(Ticket ticket) {
+        return priceInMinorUnits(ticket) / 100.0;
+    }
+
+    @Override
+    public double calculatePrice(Ticket ticket, long exitEpochMillis) {
+        return priceInMinorUnits(ticket.getVehicle().getVehicleType(), ticket.getEntryEpochMillis(), exitEpochMillis) / 100.0;
+    }
+
+}
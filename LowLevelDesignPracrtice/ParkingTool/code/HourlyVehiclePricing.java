@@ -1,4 +1,3 @@
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -13,9 +12,13 @@ public class HourlyVehiclePricing implements VehiclePricing {
 
     @Override
     public double calculatePrice(Ticket ticket) {
-        LocalDateTime checkOutTime = LocalDateTime.now() ;
-        LocalDateTime checkInTime = ticket.getEntryTime();
-        long hours = (long) Math.ceil(java.time.Duration.between(checkInTime, checkOutTime).toMinutes() / 60.0);
+        return calculatePrice(ticket, System.currentTimeMillis());
+    }
+
+    @Override
+    public double calculatePrice(Ticket ticket, long exitEpochMillis) {
+        long minutes = (exitEpochMillis - ticket.getEntryEpochMillis()) / 60_000;
+        long hours = (long) Math.ceil(minutes / 60.0);
         return hours * vehicleTypeToHourlyRate.get(ticket.getVehicle().getVehicleType());
     }
 
@@ -0,0 +1,57 @@
+// SpotAllocator on top of a PackedSpotStateStore. A next-free cursor walks the
+// packed words, checking 32 spots per long, and wraps around once when it hits the end.
+public class PackedSpotAllocator implements SpotAllocator {
+    private final PackedSpotStateStore store;
+    private int cursor;
+    private int freeCount;
+
+    PackedSpotAllocator(PackedSpotStateStore store) {
+        this.store = store;
+        // the store may already hold state (e.g. a mapped file), so count instead of assuming empty
+        this.freeCount = store.countFree();
+    }
+
+    @Override
+    public int allocate() {
+        if (freeCount == 0) {
+            return -1;
+        }
+        int spotIndex = store.nextFree(cursor);
+        if (spotIndex < 0) {
+            spotIndex = store.nextFree(0);
+        }
+        store.set(spotIndex, SpotStatus.OCCUPIED);
+        freeCount--;
+        cursor = spotIndex + 1;
+        return spotIndex;
+    }
+
+    @Override
+    public boolean release(int spotIndex) {
+        if (spotIndex < 0 || spotIndex >= store.capacity() || store.get(spotIndex) != SpotStatus.OCCUPIED) {
+            return false;
+        }
+        store.set(spotIndex, SpotStatus.FREE);
+        freeCount++;
+        if (spotIndex < cursor) {
+            cursor = spotIndex;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean hasFree() {
+        return freeCount > 0;
+    }
+
+    @Override
+    public int freeCount() {
+        return freeCount;
+    }
+
+    @Override
+    public int capacity() {
+        return store.capacity();
+    }
+
+}
@@ -0,0 +1,143 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Spot states packed 2 bits per spot, 32 spots per long, in a ByteBuffer.
+// The buffer can live on the heap, off-heap (direct) or in a memory-mapped file.
+// A zeroed buffer means every spot is FREE.
+public class PackedSpotStateStore {
+    private static final int FREE = 0;
+    private static final int OCCUPIED = 1;
+    private static final int RESERVED = 2;
+    private static final int SPOTS_PER_WORD = 32;
+    private static final long LOW_BITS = 0x5555555555555555L;
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final int words;
+
+    PackedSpotStateStore(ByteBuffer buffer, int capacity) {
+        if (buffer.capacity() < bytesFor(capacity)) {
+            throw new IllegalArgumentException("buffer too small for " + capacity + " spots");
+        }
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.words = (capacity + SPOTS_PER_WORD - 1) / SPOTS_PER_WORD;
+    }
+
+    public static PackedSpotStateStore onHeap(int capacity) {
+        return new PackedSpotStateStore(ByteBuffer.allocate(bytesFor(capacity)), capacity);
+    }
+
+    public static PackedSpotStateStore offHeap(int capacity) {
+        return new PackedSpotStateStore(ByteBuffer.allocateDirect(bytesFor(capacity)), capacity);
+    }
+
+    public static PackedSpotStateStore mapped(Path file, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            return new PackedSpotStateStore(channel.map(FileChannel.MapMode.READ_WRITE, 0, bytesFor(capacity)), capacity);
+        }
+    }
+
+    public static int bytesFor(int capacity) {
+        return ((capacity + SPOTS_PER_WORD - 1) / SPOTS_PER_WORD) * Long.BYTES;
+    }
+
+    public SpotStatus get(int spotIndex) {
+        checkIndex(spotIndex);
+        long word = buffer.getLong((spotIndex / SPOTS_PER_WORD) * Long.BYTES);
+        int code = (int) (word >>> shift(spotIndex)) & 3;
+        switch (code) {
+            case FREE:
+                return SpotStatus.FREE;
+            case OCCUPIED:
+                return SpotStatus.OCCUPIED;
+            default:
+                return SpotStatus.RESERVED;
+        }
+    }
+
+    public void set(int spotIndex, SpotStatus status) {
+        checkIndex(spotIndex);
+        int offset = (spotIndex / SPOTS_PER_WORD) * Long.BYTES;
+        int shift = shift(spotIndex);
+        long word = buffer.getLong(offset);
+        word = (word & ~(3L << shift)) | ((long) code(status) << shift);
+        buffer.putLong(offset, word);
+    }
+
+    // index of the first FREE spot at or after fromIndex, or -1
+    public int nextFree(int fromIndex) {
+        if (fromIndex >= capacity) {
+            return -1;
+        }
+        int wordIndex = fromIndex / SPOTS_PER_WORD;
+        long mask = freeMask(wordIndex) & (-1L << shift(fromIndex));
+        while (true) {
+            if (mask != 0) {
+                return wordIndex * SPOTS_PER_WORD + Long.numberOfTrailingZeros(mask) / 2;
+            }
+            if (++wordIndex == words) {
+                return -1;
+            }
+            mask = freeMask(wordIndex);
+        }
+    }
+
+    public int countFree() {
+        int free = 0;
+        for (int w = 0; w < words; w++) {
+            free += Long.bitCount(freeMask(w));
+        }
+        return free;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long sizeInBytes() {
+        return (long) words * Long.BYTES;
+    }
+
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    // one low bit set for every FREE (00) slot in the word, ignoring slots past capacity
+    private long freeMask(int wordIndex) {
+        long word = buffer.getLong(wordIndex * Long.BYTES);
+        long mask = ~(word | (word >>> 1)) & LOW_BITS;
+        int spotsInWord = capacity - wordIndex * SPOTS_PER_WORD;
+        if (spotsInWord < SPOTS_PER_WORD) {
+            mask &= (1L << (spotsInWord * 2)) - 1;
+        }
+        return mask;
+    }
+
+    private static int shift(int spotIndex) {
+        return (spotIndex % SPOTS_PER_WORD) * 2;
+    }
+
+    private static int code(SpotStatus status) {
+        switch (status) {
+            case FREE:
+                return FREE;
+            case OCCUPIED:
+                return OCCUPIED;
+            default:
+                return RESERVED;
+        }
+    }
+
+    private void checkIndex(int spotIndex) {
+        if (spotIndex < 0 || spotIndex >= capacity) {
+            throw new IndexOutOfBoundsException("spot " + spotIndex + " outside 0.." + (capacity - 1));
+        }
+    }
+
+}
@@ -1,43 +1,84 @@
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
 public class Parking {
     Map<VehicleType,List<SpotStatus>> parkingSpots;
+    private final Map<VehicleType, SpotAllocator> allocators = new EnumMap<>(VehicleType.class);
+    private ParkingIndex parkingIndex;
 
     Parking(Map<VehicleType,List<SpotStatus>> parkingSpots) {
         
         this.parkingSpots = parkingSpots;
+        for (Map.Entry<VehicleType, List<SpotStatus>> entry : parkingSpots.entrySet()) {
+            allocators.put(entry.getKey(), new FreeListSpotAllocator(entry.getValue()));
+        }
+        this.parkingIndex = new ParkingIndex(capacities(allocators));
+    }
+
+    private Parking() {
+    }
+
+    // runs on any SpotAllocator, e.g. PackedSpotAllocator for million-spot lots
+    static Parking withAllocators(Map<VehicleType, SpotAllocator> allocators) {
+        Parking parking = new Parking();
+        parking.allocators.putAll(allocators);
+        parking.parkingIndex = new ParkingIndex(capacities(allocators));
+        return parking;
+    }
+
+    private static Map<VehicleType, Integer> capacities(Map<VehicleType, SpotAllocator> allocators) {
+        Map<VehicleType, Integer> capacities = new EnumMap<>(VehicleType.class);
+        allocators.forEach((type, allocator) -> capacities.put(type, allocator.capacity()));
+        return capacities;
     }
 
     public boolean parkVehicle(Vehicle vehicle) {
-        List<SpotStatus> spots = parkingSpots.get(vehicle.getVehicleType());
-        for (int i = 0; i < spots.size(); i++) {
-            if (spots.get(i) == SpotStatus.FREE) {
-                spots.set(i, SpotStatus.OCCUPIED);
-                return true;
-            }
+        return issueTicket(vehicle) != null;
+    }
+
+    // single level parking, so every spot is on level 0
+    public Ticket issueTicket(Vehicle vehicle) {
+        if (parkingIndex.isParked(vehicle.getLicensePlate())) {
+            return null;
+        }
+        SpotAllocator allocator = allocators.get(vehicle.getVehicleType());
+        int spotIndex = allocator.allocate();
+        if (spotIndex < 0) {
+            return null;
         }
-        return false;
+        Ticket ticket = parkingIndex.register(vehicle, new Spot(0, spotIndex, vehicle.getVehicleType()), System.currentTimeMillis());
+        if (ticket == null) {
+            // the same vehicle got parked by another call in the meantime, give the spot back
+            allocator.release(spotIndex);
+        }
+        return ticket;
     }
+
     public boolean unParkVehicle(Vehicle vehicle) {
-        List<SpotStatus> spots = parkingSpots.get(vehicle.getVehicleType());
-        for (int i = 0; i < spots.size(); i++) {
-            if (spots.get(i) == SpotStatus.OCCUPIED) {
-                spots.set(i, SpotStatus.FREE);
-                return true;
-            }
+        return release(parkingIndex.removeByPlate(vehicle.getLicensePlate())) != null;
+    }
+
+    public Ticket exit(String ticketNumber) {
+        return release(parkingIndex.removeByTicketNumber(ticketNumber));
+    }
+
+    public Spot findSpot(String licensePlate) {
+        Ticket ticket = parkingIndex.findByPlate(licensePlate);
+        return ticket == null ? null : ticket.getSpot();
+    }
+
+    private Ticket release(Ticket ticket) {
+        if (ticket == null) {
+            return null;
         }
-        return false;
+        Spot spot = ticket.getSpot();
+        allocators.get(spot.getVehicleType()).release(spot.getIndex());
+        return ticket;
     }
 
     public boolean checkAvailability(VehicleType vehicleType) {
-        List<SpotStatus> spots = parkingSpots.get(vehicleType);
-        for (int i = 0; i < spots.size(); i++) {
-            if (spots.get(i) == SpotStatus.FREE) {
-                return true;
-            }
-        }
-        return false;
+        return allocators.get(vehicleType).hasFree();
     }
     
 }
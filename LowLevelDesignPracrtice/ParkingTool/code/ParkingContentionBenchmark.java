@@ -0,0 +1,108 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+// Each gate thread parks and unparks its own cars in a loop for a fixed time.
+// Compares ConcurrentParking with the plain Parking behind one global lock.
+// Run: java ParkingContentionBenchmark [maxThreads] [millisPerRun]
+public class ParkingContentionBenchmark {
+    private static final int SPOTS = 100_000;
+    private static final int FLOORS = 16;
+    private static final int CARS_PER_GATE = 256;
+
+    interface Gate {
+        boolean park(Vehicle vehicle);
+        boolean unPark(Vehicle vehicle);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+
+        System.out.printf("%-8s %18s %18s%n", "gates", "lock ops/s", "cas ops/s");
+        for (int threads : threadCounts(maxThreads)) {
+            Parking parking = new Parking(listSpots());
+            Gate locked = new Gate() {
+                public synchronized boolean park(Vehicle vehicle) { return parking.parkVehicle(vehicle); }
+                public synchronized boolean unPark(Vehicle vehicle) { return parking.unParkVehicle(vehicle); }
+            };
+            ConcurrentParking concurrentParking = new ConcurrentParking(capacities(), FLOORS);
+            Gate cas = new Gate() {
+                public boolean park(Vehicle vehicle) { return concurrentParking.parkVehicle(vehicle); }
+                public boolean unPark(Vehicle vehicle) { return concurrentParking.unParkVehicle(vehicle); }
+            };
+            run(locked, threads, millis / 2); // warm-up
+            long lockOps = run(locked, threads, millis);
+            run(cas, threads, millis / 2);
+            long casOps = run(cas, threads, millis);
+            System.out.printf("%-8d %18d %18d%n", threads, lockOps * 1000 / millis, casOps * 1000 / millis);
+        }
+    }
+
+    // 1, 2, 4 ... and always maxThreads itself, which is usually the core count and not a power of two
+    private static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(Math.max(1, maxThreads));
+        return counts;
+    }
+
+    private static long run(Gate gate, int threads, long millis) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        for (int t = 0; t < threads; t++) {
+            int gateId = t;
+            Thread worker = new Thread(() -> {
+                Vehicle[] cars = new Vehicle[CARS_PER_GATE];
+                for (int i = 0; i < cars.length; i++) {
+                    cars[i] = new Car("G" + gateId + "-" + i);
+                }
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long done = 0;
+                while (System.nanoTime() < deadline) {
+                    for (Vehicle car : cars) {
+                        gate.park(car);
+                    }
+                    for (Vehicle car : cars) {
+                        gate.unPark(car);
+                    }
+                    done += 2L * cars.length;
+                }
+                ops.add(done);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return ops.sum();
+    }
+
+    private static Map<VehicleType, List<SpotStatus>> listSpots() {
+        Map<VehicleType, List<SpotStatus>> spots = new HashMap<>();
+        spots.put(VehicleType.CAR, new ArrayList<>(Collections.nCopies(SPOTS, SpotStatus.FREE)));
+        return spots;
+    }
+
+    private static Map<VehicleType, Integer> capacities() {
+        Map<VehicleType, Integer> capacities = new EnumMap<>(VehicleType.class);
+        capacities.put(VehicleType.CAR, SPOTS);
+        return capacities;
+    }
+
+}
@@ -0,0 +1,152 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Active vehicles looked up by license plate or ticket number, so exit is one hash lookup.
+//
+// Per parked vehicle there is only one map entry: plate -> Long(ticket sequence << 24 | global spot).
+// Everything else lives in arrays sized by capacity and indexed by the global spot
+// (all spots of all vehicle types numbered one after another, like PersistentParking does):
+// the Vehicle, its entry time and the spot's level. A ticket number "T<sequence>-<globalSpot>"
+// already says where to look, so it needs no map of its own.
+// Ticket and Spot objects are built on demand and not kept.
+public class ParkingIndex {
+    private static final int SPOT_BITS = 24;
+    private static final long SPOT_MASK = (1L << SPOT_BITS) - 1;
+
+    private final ConcurrentHashMap<String, Long> byPlate = new ConcurrentHashMap<>();
+    private final AtomicLong ticketSequence = new AtomicLong();
+    private final int[] spotBases = new int[VehicleType.values().length + 1];
+    private final AtomicReferenceArray<Vehicle> vehicles;
+    private final long[] entryMillis;
+    private final int[] levels;
+
+    public ParkingIndex(Map<VehicleType, Integer> capacities) {
+        for (VehicleType type : VehicleType.values()) {
+            spotBases[type.ordinal() + 1] = spotBases[type.ordinal()] + capacities.getOrDefault(type, 0);
+        }
+        int total = spotBases[spotBases.length - 1];
+        if (total > SPOT_MASK) {
+            throw new IllegalArgumentException("at most " + SPOT_MASK + " spots can be indexed");
+        }
+        this.vehicles = new AtomicReferenceArray<>(total);
+        this.entryMillis = new long[total];
+        this.levels = new int[total];
+    }
+
+    public boolean isParked(String licensePlate) {
+        return byPlate.containsKey(licensePlate);
+    }
+
+    // returns the new ticket, or null when the vehicle already holds an active ticket
+    public Ticket register(Vehicle vehicle, Spot spot, long entryEpochMillis) {
+        int globalSpot = spotBases[spot.getVehicleType().ordinal()] + spot.getIndex();
+        long sequence = ticketSequence.incrementAndGet();
+        long key = sequence << SPOT_BITS | globalSpot;
+        // the caller owns the spot, so fill it first: a plate entry never points at an empty slot
+        entryMillis[globalSpot] = entryEpochMillis;
+        levels[globalSpot] = spot.getLevel();
+        // volatile write, publishes the plain array writes above
+        vehicles.set(globalSpot, vehicle);
+        if (byPlate.putIfAbsent(vehicle.getLicensePlate(), key) != null) {
+            vehicles.set(globalSpot, null);
+            return null;
+        }
+        return new Ticket(ticketNumber(key), vehicle, spot, entryEpochMillis);
+    }
+
+    // whoever removes the plate entry owns the exit, so a vehicle is never released twice
+    public Ticket removeByPlate(String licensePlate) {
+        Long key = byPlate.remove(licensePlate);
+        return key == null ? null : take(key);
+    }
+
+    public Ticket removeByTicketNumber(String ticketNumber) {
+        long key = parse(ticketNumber);
+        if (key < 0) {
+            return null;
+        }
+        Vehicle vehicle = vehicles.get((int) (key & SPOT_MASK));
+        // the sequence makes the key unique, an old ticket for a reused spot does not match
+        if (vehicle == null || !byPlate.remove(vehicle.getLicensePlate(), key)) {
+            return null;
+        }
+        return take(key);
+    }
+
+    public Ticket findByPlate(String licensePlate) {
+        Long key = byPlate.get(licensePlate);
+        return key == null ? null : currentTicket(key);
+    }
+
+    public Ticket findByTicketNumber(String ticketNumber) {
+        long key = parse(ticketNumber);
+        return key < 0 ? null : currentTicket(key);
+    }
+
+    public int activeTickets() {
+        return byPlate.size();
+    }
+
+    private Ticket take(long key) {
+        Ticket ticket = ticketAt(key);
+        vehicles.set((int) (key & SPOT_MASK), null);
+        return ticket;
+    }
+
+    // the ticket for key, or null once it is gone: the spot may have been freed and reused while we
+    // read it, so the plate read from the slot must still map to this very key afterwards
+    private Ticket currentTicket(long key) {
+        Ticket ticket = ticketAt(key);
+        if (ticket == null || !Long.valueOf(key).equals(byPlate.get(ticket.getVehicle().getLicensePlate()))) {
+            return null;
+        }
+        return ticket;
+    }
+
+    private Ticket ticketAt(long key) {
+        int globalSpot = (int) (key & SPOT_MASK);
+        Vehicle vehicle = vehicles.get(globalSpot);
+        if (vehicle == null) {
+            // already gone
+            return null;
+        }
+        VehicleType type = typeOf(globalSpot);
+        Spot spot = new Spot(levels[globalSpot], globalSpot - spotBases[type.ordinal()], type);
+        return new Ticket(ticketNumber(key), vehicle, spot, entryMillis[globalSpot]);
+    }
+
+    private VehicleType typeOf(int globalSpot) {
+        VehicleType[] types = VehicleType.values();
+        for (int t = 0; t < types.length; t++) {
+            if (globalSpot < spotBases[t + 1]) {
+                return types[t];
+            }
+        }
+        throw new IllegalArgumentException("no spot " + globalSpot);
+    }
+
+    private static String ticketNumber(long key) {
+        return "T" + (key >>> SPOT_BITS) + "-" + (key & SPOT_MASK);
+    }
+
+    // -1 for anything that is not a ticket number of this index
+    private long parse(String ticketNumber) {
+        int separator = ticketNumber.indexOf('-');
+        if (!ticketNumber.startsWith("T") || separator < 0) {
+            return -1;
+        }
+        try {
+            long sequence = Long.parseLong(ticketNumber.substring(1, separator));
+            int globalSpot = Integer.parseInt(ticketNumber.substring(separator + 1));
+            if (sequence <= 0 || globalSpot < 0 || globalSpot >= vehicles.length()) {
+                return -1;
+            }
+            return sequence << SPOT_BITS | globalSpot;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+}
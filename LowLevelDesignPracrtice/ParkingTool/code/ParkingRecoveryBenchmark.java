@@ -0,0 +1,156 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Crash recovery of PersistentParking, measured across real processes:
+// 1. a writer JVM parks `spots` cars, unparks every 10th and keeps parking / unparking at random
+// 2. after a while the writer is killed with SIGKILL (no close(), no checkpoint, no shutdown hooks)
+// 3. with --cold the page cache is dropped (needs root, otherwise the run says it stayed warm)
+// 4. a fresh JVM opens the files, reports how long recovery took and checks that every occupied
+//    spot still has a ticket that can be found by plate, that no two plates lead to the same spot
+//    and that unparking every plate found empties the lot
+// SIGKILL is a process crash: what the kernel already received survives it. Power loss is not
+// simulated here, that is what forceJournal = true is for.
+// Run: java ParkingRecoveryBenchmark [spots] [checkpointEvery] [churnMillis] [--cold]
+public class ParkingRecoveryBenchmark {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--writer")) {
+            writer(Paths.get(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--recover")) {
+            recover(Paths.get(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            return;
+        }
+        List<String> options = new ArrayList<>(List.of(args));
+        boolean cold = options.remove("--cold");
+        int spots = options.size() > 0 ? Integer.parseInt(options.get(0)) : 1_000_000;
+        int checkpointEvery = options.size() > 1 ? Integer.parseInt(options.get(1)) : 65_536;
+        long churnMillis = options.size() > 2 ? Long.parseLong(options.get(2)) : 1000;
+        Path directory = Files.createTempDirectory("parking");
+
+        Process writer = java("--writer", directory.toString(), String.valueOf(spots), String.valueOf(checkpointEvery));
+        BufferedReader output = new BufferedReader(new InputStreamReader(writer.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = output.readLine()) != null && !line.startsWith("ready")) {
+            System.out.println("writer: " + line);
+        }
+        if (line == null) {
+            throw new IllegalStateException("writer exited with " + writer.waitFor() + " before it was ready");
+        }
+        System.out.println("writer: " + line);
+        Thread.sleep(churnMillis);
+        writer.destroyForcibly().waitFor();
+        System.out.println("writer killed with SIGKILL while parking and unparking");
+
+        if (cold) {
+            System.out.println(dropPageCache() ? "page cache dropped" : "could not drop the page cache (needs root), cache is warm");
+        } else {
+            System.out.println("page cache is warm, use --cold to drop it first");
+        }
+
+        Process recovery = java("--recover", directory.toString(), String.valueOf(spots), String.valueOf(checkpointEvery));
+        recovery.getInputStream().transferTo(System.out);
+        if (recovery.waitFor() != 0) {
+            throw new IllegalStateException("recovery failed");
+        }
+    }
+
+    private static void writer(Path directory, int spots, int checkpointEvery) throws IOException {
+        PersistentParking gate = new PersistentParking(directory, capacities(spots), checkpointEvery, false);
+        long start = System.nanoTime();
+        for (int i = 0; i < spots; i++) {
+            gate.parkVehicle(new Car("C" + i));
+        }
+        for (int i = 0; i < spots; i += 10) {
+            gate.unParkVehicle(new Car("C" + i));
+        }
+        System.out.printf("wrote %d tickets in %d ms%n", gate.activeTickets(), (System.nanoTime() - start) / 1_000_000);
+        System.out.println("ready");
+        System.out.flush();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            Car car = new Car("C" + random.nextInt(spots));
+            if (!gate.unParkVehicle(car)) {
+                gate.parkVehicle(car);
+            }
+        }
+    }
+
+    private static void recover(Path directory, int spots, int checkpointEvery) throws IOException {
+        long start = System.nanoTime();
+        PersistentParking recovered = new PersistentParking(directory, capacities(spots), checkpointEvery, false);
+        long recoverMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("recovered %d open tickets, replayed %d journal events in %d ms (fresh JVM)%n",
+                recovered.activeTickets(), recovered.recoveredEvents(), recoverMillis);
+
+        // every plate must lead to its own spot, and together they must cover every occupied spot
+        int occupied = recovered.activeTickets();
+        BitSet spotsFound = new BitSet(spots);
+        List<Car> parked = new ArrayList<>();
+        for (int i = 0; i < spots; i++) {
+            Car car = new Car("C" + i);
+            Spot spot = recovered.findSpot(car.getLicensePlate());
+            if (spot == null) {
+                continue;
+            }
+            if (spotsFound.get(spot.getIndex())) {
+                throw new IllegalStateException("plate " + car.getLicensePlate() + " leads to spot "
+                        + spot.getIndex() + " which another plate already holds");
+            }
+            spotsFound.set(spot.getIndex());
+            parked.add(car);
+        }
+        if (parked.size() != occupied) {
+            throw new IllegalStateException(occupied + " occupied spots but " + parked.size() + " tickets found by plate");
+        }
+        // unparking everything found must leave no spot occupied, a spot without a plate would stay taken
+        for (Car car : parked) {
+            if (!recovered.unParkVehicle(car)) {
+                throw new IllegalStateException("could not unpark " + car.getLicensePlate());
+            }
+        }
+        if (recovered.activeTickets() != 0) {
+            throw new IllegalStateException(recovered.activeTickets() + " spots still occupied after unparking every plate");
+        }
+        recovered.close();
+        System.out.println("every occupied spot has its ticket, " + occupied + " plates unparked cleanly");
+    }
+
+    private static Process java(String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ParkingRecoveryBenchmark.class.getName());
+        command.addAll(List.of(args));
+        return new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    }
+
+    private static boolean dropPageCache() {
+        try {
+            new ProcessBuilder("sync").inheritIO().start().waitFor();
+            Files.writeString(Paths.get("/proc/sys/vm/drop_caches"), "3");
+            return true;
+        } catch (IOException | InterruptedException e) {
+            return false;
+        }
+    }
+
+    private static Map<VehicleType, Integer> capacities(int spots) {
+        Map<VehicleType, Integer> capacities = new EnumMap<>(VehicleType.class);
+        capacities.put(VehicleType.CAR, spots);
+        return capacities;
+    }
+
+}
@@ -0,0 +1,20 @@
+import java.util.concurrent.CompletableFuture;
+
+// A payment whose result is not known yet: it timed out or its processor was closed while the call
+// to the acquirer was still running, so the charge may or may not settle. Retrying can charge twice;
+// settlement() completes once the acquirer call has actually returned and says which way it went.
+public class PaymentOutcomeUnknownException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final transient CompletableFuture<Void> settlement;
+
+    PaymentOutcomeUnknownException(String message, CompletableFuture<Void> settlement) {
+        super(message);
+        this.settlement = settlement;
+    }
+
+    public CompletableFuture<Void> settlement() {
+        return settlement;
+    }
+
+}
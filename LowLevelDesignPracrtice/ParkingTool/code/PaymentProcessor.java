@@ -1,4 +1,11 @@
 
 public interface PaymentProcessor {
     void processPayment(double charge);
+
+    // settles a batch of charges given in minor units; processors that can settle in one call override this
+    default void processPayments(long[] chargesInMinorUnits, int count) {
+        for (int i = 0; i < count; i++) {
+            processPayment(chargesInMinorUnits[i] / 100.0);
+        }
+    }
 } 
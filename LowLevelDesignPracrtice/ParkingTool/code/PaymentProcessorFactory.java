@@ -1,13 +1,36 @@
+import java.util.EnumMap;
+import java.util.Map;
+
 public class PaymentProcessorFactory {
+    // card and cash processors hold no state, so one shared instance per type is enough
+    private static final Map<PaymentType, PaymentProcessor> processors = new EnumMap<>(PaymentType.class);
+    // stateful processors are pooled instead; copied on write so lookups need no lock
+    private static volatile Map<PaymentType, PaymentProcessorPool> pools = new EnumMap<>(PaymentType.class);
+
+    static {
+        processors.put(PaymentType.CARD, new CardPaymentProcessor());
+        processors.put(PaymentType.CASH, new CashPaymentProcessor());
+    }
+
+    // a registered pool takes precedence: each payment through it borrows a processor for the call
     public static PaymentProcessor getPaymentProcessor(PaymentType paymentType) {
-        switch (paymentType) {
-            case CARD:
-                return new CardPaymentProcessor();
-            case CASH:
-                return new CashPaymentProcessor();
-            default:
-                return new CashPaymentProcessor();
+        PaymentProcessorPool pool = pools.get(paymentType);
+        if (pool != null) {
+            return pool;
         }
+        PaymentProcessor processor = processors.get(paymentType);
+        return processor != null ? processor : processors.get(PaymentType.CASH);
+    }
+
+    public static synchronized void registerPool(PaymentType paymentType, PaymentProcessorPool pool) {
+        Map<PaymentType, PaymentProcessorPool> copy = new EnumMap<>(PaymentType.class);
+        copy.putAll(pools);
+        copy.put(paymentType, pool);
+        pools = copy;
+    }
+
+    public static PaymentProcessorPool getPool(PaymentType paymentType) {
+        return pools.get(paymentType);
     }
 
 }
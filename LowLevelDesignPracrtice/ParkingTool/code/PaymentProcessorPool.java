@@ -0,0 +1,170 @@
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Bounded pool for processors that hold connections, TLS sessions or keys and are costly to create.
+// At most maxSize processors exist; a borrower waits up to the given timeout for one to be returned.
+// The pool is a PaymentProcessor itself: registered with PaymentProcessorFactory, every payment borrows
+// a processor for the duration of the call and returns it.
+public class PaymentProcessorPool implements PaymentProcessor {
+    private static final long DEFAULT_BORROW_TIMEOUT_MILLIS = 1000;
+
+    private final Supplier<PaymentProcessor> creator;
+    private final Semaphore permits;
+    private final long borrowTimeoutMillis;
+    private final ConcurrentLinkedQueue<PaymentProcessor> idle = new ConcurrentLinkedQueue<>();
+    // compared by identity: processors do not define equals, and two equal ones are still two connections
+    private final Set<PaymentProcessor> borrowed = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    PaymentProcessorPool(Supplier<PaymentProcessor> creator, int maxSize) {
+        this(creator, maxSize, DEFAULT_BORROW_TIMEOUT_MILLIS);
+    }
+
+    PaymentProcessorPool(Supplier<PaymentProcessor> creator, int maxSize, long borrowTimeoutMillis) {
+        this.creator = creator;
+        this.permits = new Semaphore(maxSize);
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    // returns null when no processor became free within timeoutMillis
+    public PaymentProcessor borrow(long timeoutMillis) throws InterruptedException {
+        if (!permits.tryAcquire()) {
+            long start = System.nanoTime();
+            boolean acquired = permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+            waits.incrementAndGet();
+            waitNanos.addAndGet(System.nanoTime() - start);
+            if (!acquired) {
+                timeouts.incrementAndGet();
+                return null;
+            }
+        }
+        PaymentProcessor processor = idle.poll();
+        if (processor != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            try {
+                processor = creator.get();
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+        borrowed.add(processor);
+        return processor;
+    }
+
+    public void release(PaymentProcessor processor) {
+        checkBorrowed(processor);
+        idle.offer(processor);
+        permits.release();
+    }
+
+    // a broken processor is dropped (and closed if it can be) and its slot freed, the next borrow creates a fresh one
+    public void invalidate(PaymentProcessor processor) {
+        checkBorrowed(processor);
+        invalidations.incrementAndGet();
+        try {
+            if (processor instanceof AutoCloseable) {
+                ((AutoCloseable) processor).close();
+            }
+        } catch (Exception e) {
+            // it is being thrown away because it is broken, a failing close changes nothing
+        } finally {
+            permits.release();
+        }
+    }
+
+    // a permit is given back only for a processor this pool handed out and got nothing back for yet,
+    // otherwise a stray release would let more than maxSize processors exist
+    private void checkBorrowed(PaymentProcessor processor) {
+        if (!borrowed.remove(processor)) {
+            throw new IllegalArgumentException("processor was not borrowed from this pool or was already returned");
+        }
+    }
+
+    @Override
+    public void processPayment(double charge) {
+        PaymentProcessor processor = borrowOrFail();
+        try {
+            processor.processPayment(charge);
+        } finally {
+            // a declined payment does not make the processor broken
+            release(processor);
+        }
+    }
+
+    @Override
+    public void processPayments(long[] chargesInMinorUnits, int count) {
+        PaymentProcessor processor = borrowOrFail();
+        try {
+            processor.processPayments(chargesInMinorUnits, count);
+        } finally {
+            release(processor);
+        }
+    }
+
+    private PaymentProcessor borrowOrFail() {
+        PaymentProcessor processor;
+        try {
+            processor = borrow(borrowTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for a payment processor", e);
+        }
+        if (processor == null) {
+            throw new IllegalStateException("no payment processor free within " + borrowTimeoutMillis + " ms");
+        }
+        return processor;
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public double hitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    public long waits() {
+        return waits.get();
+    }
+
+    public long timeouts() {
+        return timeouts.get();
+    }
+
+    public double averageWaitMillis() {
+        long count = waits.get();
+        return count == 0 ? 0 : waitNanos.get() / 1e6 / count;
+    }
+
+    public long invalidations() {
+        return invalidations.get();
+    }
+
+    public int borrowedCount() {
+        return borrowed.size();
+    }
+
+    public int idleCount() {
+        return idle.size();
+    }
+
+}
@@ -0,0 +1,87 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Registers a pool of simulated card processors with PaymentProcessorFactory, pays through the factory
+// from many threads and checks that the pool never creates more than maxSize processors, that every
+// processor comes back, that stray or double releases are rejected and that invalidate() discards.
+// Run: java PaymentProcessorPoolCheck [payments] [threads]
+public class PaymentProcessorPoolCheck {
+    public static void main(String[] args) throws Exception {
+        int payments = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int maxSize = 4;
+        AtomicInteger created = new AtomicInteger();
+        PaymentProcessorPool pool = new PaymentProcessorPool(() -> {
+            created.incrementAndGet();
+            return new SimulatedPaymentProcessor(0, 0, 0.01);
+        }, maxSize, 10_000);
+        PaymentProcessorFactory.registerPool(PaymentType.CARD, pool);
+        PaymentProcessor card = PaymentProcessorFactory.getPaymentProcessor(PaymentType.CARD);
+        check(card == pool, "the factory does not hand out the registered pool");
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> results = new ArrayList<>();
+        AtomicInteger declined = new AtomicInteger();
+        for (int i = 0; i < payments; i++) {
+            results.add(executor.submit(() -> {
+                try {
+                    PaymentProcessorFactory.getPaymentProcessor(PaymentType.CARD).processPayment(1);
+                } catch (IllegalStateException e) {
+                    declined.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+        int createdForPayments = created.get();
+        check(created.get() <= maxSize, created.get() + " processors created for a pool of " + maxSize);
+        check(pool.borrowedCount() == 0, pool.borrowedCount() + " processors never came back");
+        check(pool.idleCount() == created.get(), "idle " + pool.idleCount() + " but created " + created.get());
+
+        PaymentProcessor borrowed = pool.borrow(0);
+        pool.release(borrowed);
+        check(rejects(() -> pool.release(borrowed)), "a second release of the same processor was accepted");
+        check(rejects(() -> pool.release(new SimulatedPaymentProcessor(0, 0, 0))), "a foreign processor was accepted");
+
+        PaymentProcessor broken = pool.borrow(0);
+        int idleBefore = pool.idleCount();
+        pool.invalidate(broken);
+        check(rejects(() -> pool.invalidate(broken)), "an invalidated processor was invalidated twice");
+        check(pool.idleCount() == idleBefore, "the invalidated processor went back to the idle list");
+        // the freed slot is usable and the pool is back to maxSize processors, never above
+        List<PaymentProcessor> all = new ArrayList<>();
+        for (int i = 0; i < maxSize; i++) {
+            PaymentProcessor processor = pool.borrow(0);
+            check(processor != null && processor != broken, "slot " + i + " not usable after invalidate");
+            all.add(processor);
+        }
+        check(pool.borrow(0) == null, "more than maxSize processors handed out");
+        all.forEach(pool::release);
+
+        System.out.printf("%d payments (%d declined) through %d pooled processors, hit ratio %.3f, %d waits; "
+                        + "stray releases rejected, invalidate discards%n",
+                payments, declined.get(), createdForPayments, pool.hitRatio(), pool.waits());
+    }
+
+    private static boolean rejects(Runnable action) {
+        try {
+            action.run();
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+}
@@ -6,5 +6,8 @@ public class PaymenyStrategy {
     public void processPayment(double payment) {
         paymentProcessor.processPayment(payment);
     }
+    public void processPayments(long[] paymentsInMinorUnits, int count) {
+        paymentProcessor.processPayments(paymentsInMinorUnits, count);
+    }
 
 }
@@ -0,0 +1,534 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Parking whose spot occupancy and open tickets live in a memory-mapped state file,
+// with every park/unpark also appended to a journal.
+//
+// state.bin  : header | packed spot states per vehicle type (2 bits/spot)
+//              | ticket table (32 bytes/spot) | plate hash table (open addressing, 4 bytes/slot)
+// journal.log: fixed 64 byte records, each with a CRC so a torn last write is ignored
+//
+// Every lookup structure is in the mapped file itself, so a restart does not rebuild anything
+// on the heap. It only re-applies journal records newer than the last checkpoint, and a
+// checkpoint runs every checkpointEvery events, so recovery replays at most that many records.
+// The ticket table is the source of truth: after a crash the plate table and the spot states are
+// rebuilt from it in one pass over the file, after close() they are trusted as they are.
+// Ticket numbers look like "T<sequence>-<spot>", so exit by ticket number needs no index at all.
+public class PersistentParking implements AutoCloseable {
+    private static final int MAGIC = 0x50524b31; // "PRK1"
+    private static final int HEADER_BYTES = 64;
+    private static final int CLEAN_OFFSET = 4;
+    private static final int CHECKPOINT_OFFSET = 8;
+    private static final int TICKET_SEQUENCE_OFFSET = 16;
+    private static final int CAPACITY_OFFSET = 24;
+    private static final int TICKET_BYTES = 32;
+    private static final int MAX_PLATE_BYTES = 15;
+    private static final int JOURNAL_RECORD_BYTES = 64;
+    private static final int CRC_OFFSET = 56;
+    private static final byte PARK = 1;
+    private static final byte UNPARK = 2;
+
+    private final MappedByteBuffer state;
+    private final FileChannel journal;
+    private final int checkpointEvery;
+    private final boolean forceJournal;
+    // spots of all vehicle types share one ticket table, a type's spots start at its base
+    private final int[] spotBases = new int[VehicleType.values().length];
+    private final int[] capacities = new int[VehicleType.values().length];
+    private final PackedSpotStateStore[] stores = new PackedSpotStateStore[VehicleType.values().length];
+    private final Map<VehicleType, PackedSpotAllocator> allocators = new EnumMap<>(VehicleType.class);
+    private int ticketTableOffset;
+    private int plateTableOffset;
+    private int plateTableMask;
+    private final ByteBuffer record = ByteBuffer.allocate(JOURNAL_RECORD_BYTES);
+    private final byte[] plateBuffer = new byte[MAX_PLATE_BYTES];
+    private final CRC32 crc = new CRC32();
+    private long lastEventSequence;
+    private int eventsSinceCheckpoint;
+    private final int recoveredEvents;
+
+    // forceJournal = true fsyncs every journal record, survives power loss at the cost of one sync per event
+    public PersistentParking(Path directory, Map<VehicleType, Integer> capacities, int checkpointEvery,
+            boolean forceJournal) throws IOException {
+        this.checkpointEvery = checkpointEvery;
+        this.forceJournal = forceJournal;
+        Files.createDirectories(directory);
+        this.state = mapState(directory.resolve("state.bin"), capacities);
+        this.journal = FileChannel.open(directory.resolve("journal.log"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        lastEventSequence = state.getLong(CHECKPOINT_OFFSET);
+        boolean clean = state.getInt(CLEAN_OFFSET) == 1;
+        recoveredEvents = replayJournal();
+        if (!clean || recoveredEvents > 0) {
+            rebuildFromTickets();
+        }
+        journal.position(journal.size());
+        for (VehicleType type : capacities.keySet()) {
+            allocators.put(type, new PackedSpotAllocator(stores[type.ordinal()]));
+        }
+        state.putInt(CLEAN_OFFSET, 0);
+        writeCheckpoint();
+    }
+
+    public synchronized boolean parkVehicle(Vehicle vehicle) {
+        return issueTicket(vehicle) != null;
+    }
+
+    public synchronized Ticket issueTicket(Vehicle vehicle) {
+        byte[] plate = plateBytes(vehicle.getLicensePlate());
+        if (findPlateSlot(plate) >= 0) {
+            return null;
+        }
+        PackedSpotAllocator allocator = allocators.get(vehicle.getVehicleType());
+        // the spot is marked before the PARK is journaled; if we crash in between, the
+        // rebuild on restart frees it again because it has no ticket
+        int spotIndex = allocator.allocate();
+        if (spotIndex < 0) {
+            return null;
+        }
+        int type = vehicle.getVehicleType().ordinal();
+        long ticketSequence = state.getLong(TICKET_SEQUENCE_OFFSET) + 1;
+        long entryMillis = System.currentTimeMillis();
+        try {
+            appendEvent(PARK, type, spotIndex, ticketSequence, entryMillis, plate);
+        } catch (IOException e) {
+            allocator.release(spotIndex);
+            throw new UncheckedIOException(e);
+        }
+        writeTicket(spotBases[type] + spotIndex, ticketSequence, entryMillis, plate);
+        maybeCheckpoint();
+
+        return new Ticket(ticketNumber(ticketSequence, spotBases[type] + spotIndex), vehicle,
+                new Spot(0, spotIndex, vehicle.getVehicleType()), entryMillis);
+    }
+
+    public synchronized boolean unParkVehicle(Vehicle vehicle) {
+        int slot = findPlateSlot(plateBytes(vehicle.getLicensePlate()));
+        return slot >= 0 && release(state.getInt(plateSlotOffset(slot)) - 1) != null;
+    }
+
+    public synchronized Ticket exit(String ticketNumber) {
+        int separator = ticketNumber.indexOf('-');
+        if (!ticketNumber.startsWith("T") || separator < 0) {
+            return null;
+        }
+        long ticketSequence;
+        int globalSpot;
+        try {
+            ticketSequence = Long.parseLong(ticketNumber.substring(1, separator));
+            globalSpot = Integer.parseInt(ticketNumber.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (globalSpot < 0 || globalSpot >= totalCapacity()
+                || state.getLong(ticketOffset(globalSpot)) != ticketSequence) {
+            return null;
+        }
+        return release(globalSpot);
+    }
+
+    public synchronized Spot findSpot(String licensePlate) {
+        int slot = findPlateSlot(plateBytes(licensePlate));
+        if (slot < 0) {
+            return null;
+        }
+        int globalSpot = state.getInt(plateSlotOffset(slot)) - 1;
+        VehicleType type = typeOf(globalSpot);
+        return new Spot(0, globalSpot - spotBases[type.ordinal()], type);
+    }
+
+    public synchronized boolean checkAvailability(VehicleType vehicleType) {
+        return allocators.get(vehicleType).hasFree();
+    }
+
+    public synchronized int activeTickets() {
+        int active = 0;
+        for (PackedSpotAllocator allocator : allocators.values()) {
+            active += allocator.capacity() - allocator.freeCount();
+        }
+        return active;
+    }
+
+    public int recoveredEvents() {
+        return recoveredEvents;
+    }
+
+    // flushes the mapped state, records the last applied event and empties the journal
+    public synchronized void checkpoint() throws IOException {
+        writeCheckpoint();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writeCheckpoint();
+        state.putInt(CLEAN_OFFSET, 1);
+        state.force();
+        journal.close();
+    }
+
+    private void writeCheckpoint() throws IOException {
+        state.force();
+        state.putLong(CHECKPOINT_OFFSET, lastEventSequence);
+        state.force();
+        journal.truncate(0);
+        journal.force(true);
+        eventsSinceCheckpoint = 0;
+    }
+
+    private Ticket release(int globalSpot) {
+        VehicleType type = typeOf(globalSpot);
+        int spotIndex = globalSpot - spotBases[type.ordinal()];
+        Ticket ticket = readTicket(globalSpot, type);
+        try {
+            appendEvent(UNPARK, type.ordinal(), spotIndex, 0, 0, new byte[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        clearTicket(globalSpot);
+        allocators.get(type).release(spotIndex);
+        maybeCheckpoint();
+        return ticket;
+    }
+
+    private void maybeCheckpoint() {
+        if (++eventsSinceCheckpoint >= checkpointEvery) {
+            try {
+                writeCheckpoint();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private MappedByteBuffer mapState(Path file, Map<VehicleType, Integer> capacityByType) throws IOException {
+        boolean exists = Files.exists(file) && Files.size(file) >= HEADER_BYTES;
+        int offset = HEADER_BYTES;
+        int[] stateOffsets = new int[VehicleType.values().length];
+        int total = 0;
+        for (VehicleType type : VehicleType.values()) {
+            int capacity = capacityByType.getOrDefault(type, 0);
+            capacities[type.ordinal()] = capacity;
+            stateOffsets[type.ordinal()] = offset;
+            offset += PackedSpotStateStore.bytesFor(capacity);
+            spotBases[type.ordinal()] = total;
+            total += capacity;
+        }
+        ticketTableOffset = offset;
+        offset += total * TICKET_BYTES;
+        // at least twice as many slots as spots keeps linear probe chains short
+        int plateSlots = Integer.highestOneBit(Math.max(1, total) * 2 - 1) << 1;
+        plateTableMask = plateSlots - 1;
+        plateTableOffset = offset;
+        offset += plateSlots * Integer.BYTES;
+
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, offset);
+        }
+        if (exists && mapped.getInt(0) != MAGIC) {
+            throw new IllegalStateException(file + " is not a parking state file");
+        }
+        mapped.putInt(0, MAGIC);
+        for (VehicleType type : VehicleType.values()) {
+            int capacity = capacities[type.ordinal()];
+            int capacityOffset = CAPACITY_OFFSET + type.ordinal() * Integer.BYTES;
+            if (exists && mapped.getInt(capacityOffset) != capacity) {
+                throw new IllegalStateException("state file was created with a different capacity for " + type);
+            }
+            mapped.putInt(capacityOffset, capacity);
+            ByteBuffer slice = mapped.slice(stateOffsets[type.ordinal()], PackedSpotStateStore.bytesFor(capacity));
+            stores[type.ordinal()] = new PackedSpotStateStore(slice, capacity);
+        }
+        return mapped;
+    }
+
+    private void appendEvent(byte op, int type, int spotIndex, long ticketSequence, long entryMillis, byte[] plate)
+            throws IOException {
+        record.clear();
+        record.putLong(0, lastEventSequence + 1);
+        record.put(8, op);
+        record.put(9, (byte) type);
+        record.putInt(12, spotIndex);
+        record.putLong(16, ticketSequence);
+        record.putLong(24, entryMillis);
+        record.put(32, (byte) plate.length);
+        for (int i = 0; i < MAX_PLATE_BYTES; i++) {
+            record.put(33 + i, i < plate.length ? plate[i] : 0);
+        }
+        crc.reset();
+        crc.update(record.array(), 0, CRC_OFFSET);
+        record.putInt(CRC_OFFSET, (int) crc.getValue());
+        while (record.hasRemaining()) {
+            journal.write(record);
+        }
+        if (forceJournal) {
+            journal.force(false);
+        }
+        lastEventSequence++;
+    }
+
+    // re-applies records newer than the checkpoint to the ticket table, stopping at the first torn
+    // or corrupt record. The mapped file may already be ahead of the checkpoint (a process crash
+    // keeps what was written to it), so a PARK only fills an empty ticket and the last record for
+    // a spot decides what it holds. The plate table and spot states are not touched here, an
+    // outdated PARK would leave a second entry for a plate that moved; rebuildFromTickets redoes them.
+    private int replayJournal() throws IOException {
+        long checkpointSequence = lastEventSequence;
+        ByteBuffer log = ByteBuffer.allocate((int) journal.size());
+        journal.read(log, 0);
+        byte[] bytes = log.array();
+        int replayed = 0;
+        for (int offset = 0; offset + JOURNAL_RECORD_BYTES <= bytes.length; offset += JOURNAL_RECORD_BYTES) {
+            crc.reset();
+            crc.update(bytes, offset, CRC_OFFSET);
+            if (log.getInt(offset + CRC_OFFSET) != (int) crc.getValue()) {
+                break;
+            }
+            long sequence = log.getLong(offset);
+            if (sequence <= checkpointSequence) {
+                continue;
+            }
+            int type = log.get(offset + 9);
+            int spotIndex = log.getInt(offset + 12);
+            int globalSpot = spotBases[type] + spotIndex;
+            if (log.get(offset + 8) == PARK) {
+                byte[] plate = new byte[log.get(offset + 32)];
+                System.arraycopy(bytes, offset + 33, plate, 0, plate.length);
+                if (state.getLong(ticketOffset(globalSpot)) == 0) {
+                    putTicket(globalSpot, log.getLong(offset + 16), log.getLong(offset + 24), plate);
+                }
+            } else {
+                wipeTicket(globalSpot);
+            }
+            lastEventSequence = sequence;
+            replayed++;
+        }
+        return replayed;
+    }
+
+    // derives the plate table and the spot states from the ticket table: a spot is occupied
+    // exactly when it holds a ticket. Should two tickets carry the same plate, the newer one wins.
+    private void rebuildFromTickets() {
+        for (int slot = 0; slot <= plateTableMask; slot++) {
+            state.putInt(plateSlotOffset(slot), 0);
+        }
+        for (VehicleType type : VehicleType.values()) {
+            PackedSpotStateStore store = stores[type.ordinal()];
+            for (int spotIndex = 0; spotIndex < capacities[type.ordinal()]; spotIndex++) {
+                int globalSpot = spotBases[type.ordinal()] + spotIndex;
+                int offset = ticketOffset(globalSpot);
+                long ticketSequence = state.getLong(offset);
+                if (ticketSequence != 0) {
+                    byte[] plate = new byte[state.get(offset + 16)];
+                    state.get(offset + 17, plate, 0, plate.length);
+                    int slot = findPlateSlot(plate);
+                    if (slot >= 0) {
+                        int other = state.getInt(plateSlotOffset(slot)) - 1;
+                        if (state.getLong(ticketOffset(other)) > ticketSequence) {
+                            wipeTicket(globalSpot);
+                            store.set(spotIndex, SpotStatus.FREE);
+                            continue;
+                        }
+                        removePlateSlot(slot);
+                        wipeTicket(other);
+                        VehicleType otherType = typeOf(other);
+                        stores[otherType.ordinal()].set(other - spotBases[otherType.ordinal()], SpotStatus.FREE);
+                    }
+                    insertPlate(plate, globalSpot);
+                    store.set(spotIndex, SpotStatus.OCCUPIED);
+                } else if (store.get(spotIndex) == SpotStatus.OCCUPIED) {
+                    store.set(spotIndex, SpotStatus.FREE);
+                }
+            }
+        }
+    }
+
+    private void writeTicket(int globalSpot, long ticketSequence, long entryMillis, byte[] plate) {
+        putTicket(globalSpot, ticketSequence, entryMillis, plate);
+        insertPlate(plate, globalSpot);
+    }
+
+    private void putTicket(int globalSpot, long ticketSequence, long entryMillis, byte[] plate) {
+        int offset = ticketOffset(globalSpot);
+        state.putLong(offset, ticketSequence);
+        state.putLong(offset + 8, entryMillis);
+        state.put(offset + 16, (byte) plate.length);
+        state.put(offset + 17, plate, 0, plate.length);
+        if (ticketSequence > state.getLong(TICKET_SEQUENCE_OFFSET)) {
+            state.putLong(TICKET_SEQUENCE_OFFSET, ticketSequence);
+        }
+    }
+
+    private void clearTicket(int globalSpot) {
+        int offset = ticketOffset(globalSpot);
+        if (state.getLong(offset) == 0) {
+            return;
+        }
+        int length = state.get(offset + 16);
+        byte[] plate = new byte[length];
+        state.get(offset + 17, plate, 0, length);
+        int slot = findPlateSlot(plate);
+        if (slot >= 0) {
+            removePlateSlot(slot);
+        }
+        wipeTicket(globalSpot);
+    }
+
+    // wipe the whole record, the plate of a vehicle that left must not stay on disk
+    private void wipeTicket(int globalSpot) {
+        int offset = ticketOffset(globalSpot);
+        for (int i = 0; i < TICKET_BYTES; i += Long.BYTES) {
+            state.putLong(offset + i, 0);
+        }
+    }
+
+    private Ticket readTicket(int globalSpot, VehicleType type) {
+        int offset = ticketOffset(globalSpot);
+        int length = state.get(offset + 16);
+        state.get(offset + 17, plateBuffer, 0, length);
+        Vehicle vehicle = vehicle(type, new String(plateBuffer, 0, length, StandardCharsets.UTF_8));
+        return new Ticket(ticketNumber(state.getLong(offset), globalSpot), vehicle,
+                new Spot(0, globalSpot - spotBases[type.ordinal()], type), state.getLong(offset + 8));
+    }
+
+    // plate hash table: each slot holds globalSpot + 1, 0 means empty; the plate bytes are
+    // compared against the ticket table, so the table itself stays 4 bytes per slot
+    private int findPlateSlot(byte[] plate) {
+        for (int slot = hash(plate, plate.length) & plateTableMask; ; slot = (slot + 1) & plateTableMask) {
+            int entry = state.getInt(plateSlotOffset(slot));
+            if (entry == 0) {
+                return -1;
+            }
+            if (plateEquals(entry - 1, plate)) {
+                return slot;
+            }
+        }
+    }
+
+    private void insertPlate(byte[] plate, int globalSpot) {
+        int slot = hash(plate, plate.length) & plateTableMask;
+        while (true) {
+            int entry = state.getInt(plateSlotOffset(slot));
+            if (entry == 0) {
+                state.putInt(plateSlotOffset(slot), globalSpot + 1);
+                return;
+            }
+            if (entry == globalSpot + 1) {
+                return;
+            }
+            slot = (slot + 1) & plateTableMask;
+        }
+    }
+
+    // linear probing delete with backward shift, so no tombstones pile up under churn
+    private void removePlateSlot(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & plateTableMask;
+        while (true) {
+            int entry = state.getInt(plateSlotOffset(next));
+            if (entry == 0) {
+                break;
+            }
+            int home = plateHashAt(entry - 1) & plateTableMask;
+            // move the entry back when the hole lies on its probe path between home and next
+            if (((next - home) & plateTableMask) >= ((next - hole) & plateTableMask)) {
+                state.putInt(plateSlotOffset(hole), entry);
+                hole = next;
+            }
+            next = (next + 1) & plateTableMask;
+        }
+        state.putInt(plateSlotOffset(hole), 0);
+    }
+
+    private boolean plateEquals(int globalSpot, byte[] plate) {
+        int offset = ticketOffset(globalSpot);
+        if (state.get(offset + 16) != plate.length) {
+            return false;
+        }
+        for (int i = 0; i < plate.length; i++) {
+            if (state.get(offset + 17 + i) != plate[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int plateHashAt(int globalSpot) {
+        int offset = ticketOffset(globalSpot);
+        int length = state.get(offset + 16);
+        state.get(offset + 17, plateBuffer, 0, length);
+        return hash(plateBuffer, length);
+    }
+
+    // FNV-1a with a final mix so similar plates spread over the table
+    private static int hash(byte[] plate, int length) {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < length; i++) {
+            h = (h ^ plate[i]) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private int ticketOffset(int globalSpot) {
+        return ticketTableOffset + globalSpot * TICKET_BYTES;
+    }
+
+    private int plateSlotOffset(int slot) {
+        return plateTableOffset + slot * Integer.BYTES;
+    }
+
+    private int totalCapacity() {
+        int total = 0;
+        for (int capacity : capacities) {
+            total += capacity;
+        }
+        return total;
+    }
+
+    private VehicleType typeOf(int globalSpot) {
+        VehicleType[] types = VehicleType.values();
+        for (int t = types.length - 1; t >= 0; t--) {
+            if (capacities[t] > 0 && globalSpot >= spotBases[t]) {
+                return types[t];
+            }
+        }
+        throw new IllegalArgumentException("no vehicle type owns spot " + globalSpot);
+    }
+
+    private static String ticketNumber(long ticketSequence, int globalSpot) {
+        return "T" + ticketSequence + "-" + globalSpot;
+    }
+
+    private static byte[] plateBytes(String licensePlate) {
+        byte[] plate = licensePlate.getBytes(StandardCharsets.UTF_8);
+        if (plate.length > MAX_PLATE_BYTES) {
+            throw new IllegalArgumentException("license plate longer than " + MAX_PLATE_BYTES + " bytes: " + licensePlate);
+        }
+        return plate;
+    }
+
+    private static Vehicle vehicle(VehicleType type, String licensePlate) {
+        switch (type) {
+            case BIKE:
+                return new Bike(licensePlate);
+            case TRUCK:
+                return new Truck(licensePlate);
+            default:
+                return new Car(licensePlate);
+        }
+    }
+
+}
@@ -0,0 +1,224 @@
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs a blocking PaymentProcessor off the gate thread with at most maxInFlight payments at a time.
+// processPaymentAsync never blocks the caller: a payment that finds every slot taken waits on its own
+// virtual thread for up to admissionWaitMillis and is then rejected, and once maxInFlight payments are
+// already waiting a new one is rejected right away, so a slow card acquirer pushes back on callers
+// instead of queueing without bound.
+// A payment not settled within timeoutMillis of starting fails with a PaymentOutcomeUnknownException,
+// not as declined: the call to the acquirer is interrupted, but the charge may already be on its way
+// and can still settle, so the exception carries the real settlement for the caller to reconcile.
+public class PipelinedPaymentProcessor implements AsyncPaymentProcessor, PaymentProcessor, AutoCloseable {
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+
+    private final PaymentProcessor delegate;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final long admissionWaitMillis;
+    private final long timeoutMillis;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timer;
+    private final Set<Payment> pending = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong settledLate = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    PipelinedPaymentProcessor(PaymentProcessor delegate, int maxInFlight, long admissionWaitMillis, long timeoutMillis) {
+        this.delegate = delegate;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.admissionWaitMillis = admissionWaitMillis;
+        this.timeoutMillis = timeoutMillis;
+        // the delegate blocks, so every payment gets a cheap virtual thread of its own and the semaphore
+        // bounds how many reach the acquirer; a thread runs exactly one payment, so interrupting it on
+        // timeout cannot hit another payment
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("payment-", 1).factory());
+        // one platform thread fires the timeouts; each is cancelled and dropped once its payment is done
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().name("payment-timeout").daemon().factory());
+        timer.setRemoveOnCancelPolicy(true);
+        this.timer = timer;
+    }
+
+    private static final class Payment {
+        final double charge;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        // what the acquirer call actually did, completes even after result has timed out
+        final CompletableFuture<Void> settlement = new CompletableFuture<>();
+        final AtomicInteger state = new AtomicInteger(QUEUED);
+        volatile Thread runner;
+        volatile ScheduledFuture<?> timeout;
+
+        Payment(double charge) {
+            this.charge = charge;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> processPaymentAsync(double charge) {
+        Payment payment = new Payment(charge);
+        if (closed) {
+            return reject(payment, "payment processor is closed");
+        }
+        if (waiting.incrementAndGet() > maxInFlight) {
+            waiting.decrementAndGet();
+            return reject(payment, "too many payments waiting for a slot");
+        }
+        pending.add(payment);
+        try {
+            executor.execute(() -> run(payment));
+        } catch (RejectedExecutionException e) {
+            // closed in the meantime
+            waiting.decrementAndGet();
+            pending.remove(payment);
+            return reject(payment, "payment processor is closed");
+        }
+        return payment.result;
+    }
+
+    private void run(Payment payment) {
+        boolean admitted;
+        try {
+            admitted = inFlight.tryAcquire(admissionWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            // only close() interrupts a waiting payment
+            admitted = false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if (!admitted) {
+            pending.remove(payment);
+            if (payment.state.compareAndSet(QUEUED, DONE)) {
+                reject(payment, closed ? "payment processor is closed" : "too many payments in flight");
+            }
+            return;
+        }
+        try {
+            if (!payment.state.compareAndSet(QUEUED, RUNNING)) {
+                // failed by close() before it could start
+                return;
+            }
+            payment.runner = Thread.currentThread();
+            try {
+                payment.timeout = timer.schedule(() -> timeOut(payment), timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // closed after this payment was admitted, it never reached the acquirer
+                reject(payment, "payment processor is closed");
+                return;
+            }
+            try {
+                delegate.processPayment(payment.charge);
+                payment.settlement.complete(null);
+                if (payment.result.complete(null)) {
+                    completed.incrementAndGet();
+                } else {
+                    // the caller was told the outcome is unknown, this charge needs reconciling
+                    settledLate.incrementAndGet();
+                }
+            } catch (Throwable e) {
+                // an Error must complete the futures too, or the caller waits forever
+                payment.settlement.completeExceptionally(e);
+                if (payment.result.completeExceptionally(e)) {
+                    failed.incrementAndGet();
+                }
+                if (e instanceof Error) {
+                    throw (Error) e;
+                }
+            }
+        } finally {
+            ScheduledFuture<?> timeout = payment.timeout;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            payment.state.set(DONE);
+            pending.remove(payment);
+            inFlight.release();
+        }
+    }
+
+    private void timeOut(Payment payment) {
+        if (payment.result.completeExceptionally(new PaymentOutcomeUnknownException(
+                "payment not settled in " + timeoutMillis + " ms, outcome unknown", payment.settlement))) {
+            timedOut.incrementAndGet();
+            // try to stop the call; an acquirer that already sent the charge may settle it anyway
+            Thread runner = payment.runner;
+            if (runner != null && payment.state.get() == RUNNING) {
+                runner.interrupt();
+            }
+        }
+    }
+
+    private CompletableFuture<Void> reject(Payment payment, String reason) {
+        rejected.incrementAndGet();
+        payment.settlement.completeExceptionally(new RejectedExecutionException(reason));
+        payment.result.completeExceptionally(new RejectedExecutionException(reason));
+        return payment.result;
+    }
+
+    // blocking variant for callers of the plain PaymentProcessor interface
+    @Override
+    public void processPayment(double charge) {
+        processPaymentAsync(charge).join();
+    }
+
+    public int inFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    public long completed() {
+        return completed.get();
+    }
+
+    public long failed() {
+        return failed.get();
+    }
+
+    public long timedOut() {
+        return timedOut.get();
+    }
+
+    // charges that settled after their caller was told the outcome is unknown
+    public long settledLate() {
+        return settledLate.get();
+    }
+
+    public long rejected() {
+        return rejected.get();
+    }
+
+    // Payments that have not reached the acquirer are rejected, those already running there fail as
+    // outcome unknown and are interrupted; every returned future is completed before close() returns.
+    @Override
+    public void close() {
+        closed = true;
+        for (Payment payment : pending) {
+            if (payment.state.compareAndSet(QUEUED, DONE)) {
+                reject(payment, "payment processor is closed");
+            } else if (payment.result.completeExceptionally(new PaymentOutcomeUnknownException(
+                    "payment processor closed while the payment was in flight, outcome unknown", payment.settlement))) {
+                timedOut.incrementAndGet();
+            }
+        }
+        executor.shutdownNow();
+        timer.shutdownNow();
+    }
+
+}
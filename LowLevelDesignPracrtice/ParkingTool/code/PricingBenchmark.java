@@ -0,0 +1,50 @@
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+
+// Prices the same tickets with HourlyVehiclePricing and HourlyPricingEngine and reports
+// ns per checkout and bytes allocated per checkout (HotSpot thread allocation counter).
+// Run: java PricingBenchmark [iterations]
+public class PricingBenchmark {
+    private static final int TICKETS = 1024;
+
+    interface Pricer {
+        long price(Ticket ticket);
+    }
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        Ticket[] tickets = new Ticket[TICKETS];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < TICKETS; i++) {
+            Vehicle vehicle = i % 3 == 0 ? new Bike("B" + i) : i % 3 == 1 ? new Car("C" + i) : new Truck("T" + i);
+            tickets[i] = new Ticket("T" + i, vehicle, null, now - (i * 97_000L) % (48 * 3_600_000L));
+        }
+
+        HourlyVehiclePricing current = new HourlyVehiclePricing();
+        HourlyPricingEngine engine = new HourlyPricingEngine(Clock.systemUTC());
+
+        System.out.printf("%-22s %10s %14s%n", "pricing", "ns/op", "bytes/op");
+        for (int round = 0; round < 2; round++) { // first round is warm-up
+            report("HourlyVehiclePricing", tickets, iterations, ticket -> (long) (current.calculatePrice(ticket) * 100), round > 0);
+            report("HourlyPricingEngine", tickets, iterations, engine::priceInMinorUnits, round > 0);
+        }
+    }
+
+    private static void report(String name, Ticket[] tickets, int iterations, Pricer pricer, boolean print) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+            total += pricer.price(tickets[i & (TICKETS - 1)]);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        if (print) {
+            System.out.printf("%-22s %10.1f %14.1f   (checksum %d)%n", name, (double) elapsed / iterations,
+                    (double) allocated / iterations, total);
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Local stand-in for a card acquirer: every payment takes latencyMillis plus up to jitterMillis,
+// and fails with the given probability. Nothing is printed so it can run at high rates.
+public class SimulatedPaymentProcessor implements PaymentProcessor {
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double failureRate;
+    private final AtomicLong settledMinorUnits = new AtomicLong();
+
+    SimulatedPaymentProcessor(long latencyMillis, long jitterMillis, double failureRate) {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public void processPayment(double charge) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latencyMillis + (jitterMillis > 0 ? random.nextLong(jitterMillis + 1) : 0);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("payment interrupted", e);
+        }
+        if (random.nextDouble() < failureRate) {
+            throw new IllegalStateException("payment declined by simulated acquirer");
+        }
+        settledMinorUnits.addAndGet(Math.round(charge * 100));
+    }
+
+    public long settledMinorUnits() {
+        return settledMinorUnits.get();
+    }
+
+}
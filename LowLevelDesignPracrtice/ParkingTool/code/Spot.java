@@ -1,4 +1,47 @@
 
 public class Spot {
+    private final int level;
+    private final int index;
+    private final VehicleType vehicleType;
+
+    public Spot(int level, int index, VehicleType vehicleType) {
+        this.level = level;
+        this.index = index;
+        this.vehicleType = vehicleType;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public VehicleType getVehicleType() {
+        return vehicleType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Spot)) {
+            return false;
+        }
+        Spot other = (Spot) o;
+        return level == other.level && index == other.index && vehicleType == other.vehicleType;
+    }
+
+    @Override
+    public int hashCode() {
+        return (vehicleType.ordinal() * 31 + level) * 31 + index;
+    }
+
+    @Override
+    public String toString() {
+        return vehicleType + "-L" + level + "-" + index;
+    }
 
 }
@@ -0,0 +1,8 @@
+public interface SpotAllocator {
+    // returns the index of the claimed spot or -1 when no spot is free
+    int allocate();
+    boolean release(int spotIndex);
+    boolean hasFree();
+    int freeCount();
+    int capacity();
+}
@@ -0,0 +1,87 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Compares List<SpotStatus> with PackedSpotStateStore: bytes per spot and how fast
+// a full scan for free spots runs on a mostly occupied lot.
+// Run with a fixed heap for a steadier memory number: java -Xms1g -Xmx1g SpotStateBenchmark [spots]
+public class SpotStateBenchmark {
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        int spots = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+        Random random = new Random(42);
+        boolean[] occupied = new boolean[spots];
+        for (int i = 0; i < spots; i++) {
+            occupied[i] = random.nextInt(100) < 99;
+        }
+
+        long before = usedHeap();
+        List<SpotStatus> list = new ArrayList<>(spots);
+        for (int i = 0; i < spots; i++) {
+            list.add(occupied[i] ? SpotStatus.OCCUPIED : SpotStatus.FREE);
+        }
+        long listBytes = usedHeap() - before;
+
+        PackedSpotStateStore heapStore = PackedSpotStateStore.onHeap(spots);
+        PackedSpotStateStore directStore = PackedSpotStateStore.offHeap(spots);
+        for (int i = 0; i < spots; i++) {
+            if (occupied[i]) {
+                heapStore.set(i, SpotStatus.OCCUPIED);
+                directStore.set(i, SpotStatus.OCCUPIED);
+            }
+        }
+
+        System.out.printf("spots: %d (99%% occupied)%n", spots);
+        System.out.printf("%-22s %12s %16s%n", "store", "bytes/spot", "scan spots/s");
+        report("List<SpotStatus>", (double) listBytes / spots, spots, () -> countFree(list));
+        report("packed heap", (double) heapStore.sizeInBytes() / spots, spots, heapStore::countFree);
+        report("packed direct", (double) directStore.sizeInBytes() / spots, spots, directStore::countFree);
+        report("packed nextFree walk", (double) heapStore.sizeInBytes() / spots, spots, () -> walkFree(heapStore));
+    }
+
+    interface Scan {
+        int run();
+    }
+
+    private static void report(String name, double bytesPerSpot, int spots, Scan scan) {
+        int free = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            free += scan.run(); // warm-up
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            free += scan.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        double spotsPerSecond = (double) spots * ROUNDS / (elapsed / 1e9);
+        System.out.printf("%-22s %12.3f %16.3e   (free=%d)%n", name, bytesPerSpot, spotsPerSecond, free / (2 * ROUNDS));
+    }
+
+    private static int countFree(List<SpotStatus> spots) {
+        int free = 0;
+        for (int i = 0; i < spots.size(); i++) {
+            if (spots.get(i) == SpotStatus.FREE) {
+                free++;
+            }
+        }
+        return free;
+    }
+
+    private static int walkFree(PackedSpotStateStore store) {
+        int free = 0;
+        for (int i = store.nextFree(0); i >= 0; i = store.nextFree(i + 1)) {
+            free++;
+        }
+        return free;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
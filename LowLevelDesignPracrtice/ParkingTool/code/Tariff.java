@@ -0,0 +1,128 @@
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Tariff definition, all amounts in minor currency units (cents) per hour unless noted.
+// It is only a description; TariffPricing compiles it into lookup tables before use.
+//
+// How a stay is charged: like HourlyVehiclePricing, the stay is cut into started hours counted
+// from the entry time (whole minutes, rounded up). Each of those hours is charged at the rate of
+// the clock hour it starts in, so 21:50-22:50 is a day hour even with night starting at 22:00.
+// The daily maximum counts per calendar day of the hour starts, the night cap per run of night hours.
+// Stays are not split to the minute at day/night or midnight boundaries.
+// TariffCheck compares this against an hour-by-hour reference pricer.
+public class Tariff {
+    private final ZoneOffset zoneOffset;
+    private int nightStartHour = 22;
+    private int nightEndHour = 6;
+    private final Map<VehicleType, Rates> rates = new EnumMap<>(VehicleType.class);
+
+    public Tariff(ZoneOffset zoneOffset) {
+        this.zoneOffset = zoneOffset;
+    }
+
+    // night runs from startHour to endHour and may wrap past midnight, equal hours means no night
+    public Tariff nightHours(int startHour, int endHour) {
+        if (startHour < 0 || startHour > 23 || endHour < 0 || endHour > 23) {
+            throw new IllegalArgumentException("night hours must be between 0 and 23");
+        }
+        this.nightStartHour = startHour;
+        this.nightEndHour = endHour;
+        return this;
+    }
+
+    public Tariff rates(VehicleType vehicleType, Rates vehicleRates) {
+        rates.put(vehicleType, vehicleRates);
+        return this;
+    }
+
+    public ZoneOffset getZoneOffset() {
+        return zoneOffset;
+    }
+
+    public int getNightStartHour() {
+        return nightStartHour;
+    }
+
+    public int getNightEndHour() {
+        return nightEndHour;
+    }
+
+    public Rates getRates(VehicleType vehicleType) {
+        return rates.get(vehicleType);
+    }
+
+    public static class Rates {
+        private long dayRate;
+        private long nightRate;
+        private long weekendRate;
+        private int firstHours;
+        private long firstHoursRate;
+        private long nightCap;
+        private long dailyMax;
+
+        public Rates(long dayRate) {
+            this.dayRate = dayRate;
+            this.nightRate = dayRate;
+            this.weekendRate = dayRate;
+        }
+
+        public Rates nightRate(long nightRate) {
+            this.nightRate = nightRate;
+            return this;
+        }
+
+        public Rates weekendRate(long weekendRate) {
+            this.weekendRate = weekendRate;
+            return this;
+        }
+
+        // the first hours of every stay are charged at this rate whatever the time of day
+        public Rates firstHours(int hours, long rate) {
+            this.firstHours = hours;
+            this.firstHoursRate = rate;
+            return this;
+        }
+
+        // most that one night (one run of night hours) can cost, 0 means no cap
+        public Rates nightCap(long nightCap) {
+            this.nightCap = nightCap;
+            return this;
+        }
+
+        // most that one calendar day can cost, 0 means no cap
+        public Rates dailyMax(long dailyMax) {
+            this.dailyMax = dailyMax;
+            return this;
+        }
+
+        public long getDayRate() {
+            return dayRate;
+        }
+
+        public long getNightRate() {
+            return nightRate;
+        }
+
+        public long getWeekendRate() {
+            return weekendRate;
+        }
+
+        public int getFirstHours() {
+            return firstHours;
+        }
+
+        public long getFirstHoursRate() {
+            return firstHoursRate;
+        }
+
+        public long getNightCap() {
+            return nightCap;
+        }
+
+        public long getDailyMax() {
+            return dailyMax;
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+// Prices random stays with random tariffs through TariffPricing (compiled tables, one by one and
+// in batches) and through a plain reference pricer that walks the stay hour by hour with java.time,
+// and fails on the first difference. The reference follows the charging rule written down in Tariff.
+// Run: java TariffCheck [stays] [seed]
+public class TariffCheck {
+    public static void main(String[] args) {
+        int stays = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 7;
+        Random random = new Random(seed);
+        Tariff tariff = null;
+        TariffPricing pricing = null;
+        // stays go through priceInMinorUnits one by one and through priceBatch in blocks of 1000,
+        // with a new tariff for every block (also exercises swap())
+        int block = 1000;
+        long[] entries = new long[block];
+        int[] ordinals = new int[block];
+        long[] batchPrices = new long[block];
+        for (int first = 0; first < stays; first += block) {
+            tariff = randomTariff(random);
+            if (pricing == null) {
+                pricing = new TariffPricing(tariff, Clock.systemUTC());
+            } else {
+                pricing.swap(tariff);
+            }
+            long exit = 1_700_000_000_000L + (long) (random.nextDouble() * 1e10);
+            int count = Math.min(block, stays - first);
+            for (int i = 0; i < count; i++) {
+                ordinals[i] = random.nextInt(VehicleType.values().length);
+                // mostly hours, sometimes a week or more
+                entries[i] = exit - (long) (random.nextDouble() * (i % 10 == 0 ? 1e9 : 1e8));
+            }
+            pricing.priceBatch(entries, ordinals, count, exit, batchPrices);
+            for (int i = 0; i < count; i++) {
+                VehicleType type = VehicleType.values()[ordinals[i]];
+                long reference = reference(tariff, type, entries[i], exit);
+                long single = pricing.priceInMinorUnits(type, entries[i], exit);
+                if (single != reference || batchPrices[i] != reference) {
+                    throw new AssertionError("stay " + (first + i) + " (" + type + ", " + entries[i] + " -> " + exit
+                            + "): single " + single + ", batch " + batchPrices[i] + " but reference " + reference);
+                }
+            }
+        }
+        System.out.println(stays + " stays priced the same by the compiled tariff (single and batch) and the reference");
+    }
+
+    static long reference(Tariff tariff, VehicleType type, long entryEpochMillis, long exitEpochMillis) {
+        Tariff.Rates rates = tariff.getRates(type);
+        long minutes = Math.max(0, exitEpochMillis - entryEpochMillis) / 60_000;
+        long hours = (minutes + 59) / 60;
+        long total = 0;
+        long chargedToday = 0;
+        long chargedThisNight = 0;
+        LocalDate today = null;
+        for (long hour = 0; hour < hours; hour++) {
+            long startMillis = entryEpochMillis + hour * 3_600_000;
+            LocalDateTime start = LocalDateTime.ofEpochSecond(Math.floorDiv(startMillis, 1000), 0, tariff.getZoneOffset());
+            if (!start.toLocalDate().equals(today)) {
+                today = start.toLocalDate();
+                chargedToday = 0;
+            }
+            boolean night = isNight(start.getHour(), tariff.getNightStartHour(), tariff.getNightEndHour());
+            boolean weekend = start.getDayOfWeek() == DayOfWeek.SATURDAY || start.getDayOfWeek() == DayOfWeek.SUNDAY;
+            long cost = hour < rates.getFirstHours() ? rates.getFirstHoursRate()
+                    : night ? rates.getNightRate() : weekend ? rates.getWeekendRate() : rates.getDayRate();
+            if (!night) {
+                chargedThisNight = 0;
+            } else if (rates.getNightCap() > 0) {
+                cost = Math.min(cost, rates.getNightCap() - chargedThisNight);
+                chargedThisNight += cost;
+            }
+            if (rates.getDailyMax() > 0) {
+                cost = Math.min(cost, rates.getDailyMax() - chargedToday);
+                chargedToday += cost;
+            }
+            total += cost;
+        }
+        return total;
+    }
+
+    private static boolean isNight(int hour, int startHour, int endHour) {
+        if (startHour == endHour) {
+            return false;
+        }
+        return startHour < endHour ? hour >= startHour && hour < endHour : hour >= startHour || hour < endHour;
+    }
+
+    private static Tariff randomTariff(Random random) {
+        Tariff tariff = new Tariff(ZoneOffset.ofHours(random.nextInt(27) - 12))
+                .nightHours(random.nextInt(24), random.nextInt(24));
+        for (VehicleType type : VehicleType.values()) {
+            Tariff.Rates rates = new Tariff.Rates(100 + random.nextInt(900))
+                    .nightRate(random.nextInt(500))
+                    .weekendRate(100 + random.nextInt(900));
+            if (random.nextBoolean()) {
+                rates.firstHours(1 + random.nextInt(3), random.nextInt(1500));
+            }
+            if (random.nextBoolean()) {
+                rates.nightCap(200 + random.nextInt(2000));
+            }
+            if (random.nextBoolean()) {
+                rates.dailyMax(1000 + random.nextInt(10_000));
+            }
+            tariff.rates(type, rates);
+        }
+        return tariff;
+    }
+
+}
@@ -0,0 +1,44 @@
+import java.time.Clock;
+
+// VehiclePricing backed by a compiled Tariff. swap() compiles the new tariff on the caller's
+// thread and publishes it with one volatile write, so checkouts never wait for a tariff change
+// and each checkout prices against one consistent tariff.
+public class TariffPricing implements VehiclePricing, BatchVehiclePricing {
+    private final Clock clock;
+    private volatile CompiledTariff tariff;
+
+    TariffPricing(Tariff tariff, Clock clock) {
+        this.clock = clock;
+        this.tariff = new CompiledTariff(tariff);
+    }
+
+    public void swap(Tariff newTariff) {
+        this.tariff = new CompiledTariff(newTariff);
+    }
+
+    public long priceInMinorUnits(Ticket ticket) {
+        return priceInMinorUnits(ticket.getVehicle().getVehicleType(), ticket.getEntryEpochMillis(), clock.millis());
+    }
+
+    public long priceInMinorUnits(VehicleType vehicleType, long entryEpochMillis, long exitEpochMillis) {
+        return tariff.price(vehicleType, entryEpochMillis, exitEpochMillis);
+    }
+
+    // the whole batch is priced against the same tariff even if swap() runs meanwhile
+    @Override
+    public void priceBatch(long[] entryEpochMillis, int[] vehicleTypeOrdinals, int count, long exitEpochMillis,
+            long[] prices) {
+        tariff.priceBatch(entryEpochMillis, vehicleTypeOrdinals, count, exitEpochMillis, prices);
+    }
+
+    @Override
+    public double calculatePrice(Ticket ticket) {
+        return priceInMinorUnits(ticket) / 100.0;
+    }
+
+    @Override
+    public double calculatePrice(Ticket ticket, long exitEpochMillis) {
+        return priceInMinorUnits(ticket.getVehicle().getVehicleType(), ticket.getEntryEpochMillis(), exitEpochMillis) / 100.0;
+    }
+
+}
@@ -1,18 +1,25 @@
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 
 public class Ticket {   
     private String ticketNumber;
     private Vehicle vehicle;
     private Spot spot;
-    private LocalDateTime entryTime;
+    // kept as epoch millis so pricing can work on primitives, LocalDateTime is derived on demand
+    private long entryEpochMillis;
     private boolean paid;
 
     public Ticket(String ticketNumber, Vehicle vehicle, Spot spot) {
+        this(ticketNumber, vehicle, spot, System.currentTimeMillis());
+    }
+
+    public Ticket(String ticketNumber, Vehicle vehicle, Spot spot, long entryEpochMillis) {
         this.ticketNumber = ticketNumber; // we can add any sequence number here
         this.vehicle = vehicle;
         this.spot = spot;
-        this.entryTime = LocalDateTime.now();
+        this.entryEpochMillis = entryEpochMillis;
         this.paid=false;    }
 
     public String getTicketNumber() {
@@ -40,11 +47,19 @@ public class Ticket {
     }
 
     public LocalDateTime getEntryTime() {
-        return entryTime;
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(entryEpochMillis), ZoneId.systemDefault());
     }
 
     public void setEntryTime(LocalDateTime entryTime) {
-        this.entryTime = entryTime;
+        this.entryEpochMillis = entryTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public long getEntryEpochMillis() {
+        return entryEpochMillis;
+    }
+
+    public void setEntryEpochMillis(long entryEpochMillis) {
+        this.entryEpochMillis = entryEpochMillis;
     }
 
     public boolean isPaid() {
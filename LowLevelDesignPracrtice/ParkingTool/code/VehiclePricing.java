@@ -1,7 +1,9 @@
 public interface VehiclePricing {
     double calculatePrice(Ticket ticket);
-}
-
-
-
 
+    // price for a checkout at a given time; pricing that depends on the stay length must override it,
+    // the default is only right for prices that do not depend on time, like FixedVehiclePricing
+    default double calculatePrice(Ticket ticket, long exitEpochMillis) {
+        return calculatePrice(ticket);
+    }
+}
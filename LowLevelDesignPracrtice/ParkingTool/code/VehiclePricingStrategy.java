@@ -6,4 +6,28 @@ public class VehiclePricingStrategy {
     public double calculatePrice(Ticket ticket) {
         return vehiclePricing.calculatePrice(ticket);
     }
+
+    public double calculatePrice(Ticket ticket, long exitEpochMillis) {
+        return vehiclePricing.calculatePrice(ticket, exitEpochMillis);
+    }
+
+    // prices in minor units, in one pass over primitive arrays when the pricing supports batches
+    public long[] calculatePrices(Ticket[] tickets, long exitEpochMillis) {
+        long[] prices = new long[tickets.length];
+        if (vehiclePricing instanceof BatchVehiclePricing) {
+            long[] entryEpochMillis = new long[tickets.length];
+            int[] vehicleTypeOrdinals = new int[tickets.length];
+            for (int i = 0; i < tickets.length; i++) {
+                entryEpochMillis[i] = tickets[i].getEntryEpochMillis();
+                vehicleTypeOrdinals[i] = tickets[i].getVehicle().getVehicleType().ordinal();
+            }
+            ((BatchVehiclePricing) vehiclePricing).priceBatch(entryEpochMillis, vehicleTypeOrdinals, tickets.length,
+                    exitEpochMillis, prices);
+        } else {
+            for (int i = 0; i < tickets.length; i++) {
+                prices[i] = Math.round(vehiclePricing.calculatePrice(tickets[i], exitEpochMillis) * 100);
+            }
+        }
+        return prices;
+    }
 }
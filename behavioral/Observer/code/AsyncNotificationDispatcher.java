@@ -0,0 +1,90 @@
+package behavioral.Observer.code;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Delivers one message to many observers on a worker pool instead of the caller's thread.
+// Observers are split into batches, one task per batch, and a failing observer only fails itself.
+public class AsyncNotificationDispatcher implements AutoCloseable {
+    private final ExecutorService executor;
+    private final int batchSize;
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder updateNanos = new LongAdder();
+    private final AtomicLong maxUpdateNanos = new AtomicLong();
+
+    public AsyncNotificationDispatcher(int threads, int batchSize) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "notify-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batchSize = batchSize;
+    }
+
+    // observers must not change while the dispatch runs, pass a snapshot
+    public CompletableFuture<DeliveryReport> dispatch(String message, List<Observer> observers) {
+        long start = System.nanoTime();
+        AtomicInteger deliveredHere = new AtomicInteger();
+        ConcurrentLinkedQueue<Observer> failedHere = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int from = 0; from < observers.size(); from += batchSize) {
+            List<Observer> batch = observers.subList(from, Math.min(from + batchSize, observers.size()));
+            batches.add(CompletableFuture.runAsync(() -> deliver(message, batch, deliveredHere, failedHere), executor));
+        }
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> new DeliveryReport(deliveredHere.get(), new ArrayList<>(failedHere),
+                        System.nanoTime() - start));
+    }
+
+    private void deliver(String message, List<Observer> batch, AtomicInteger deliveredHere,
+            ConcurrentLinkedQueue<Observer> failedHere) {
+        int ok = 0;
+        for (Observer observer : batch) {
+            long start = System.nanoTime();
+            try {
+                observer.update(message);
+                ok++;
+            } catch (RuntimeException e) {
+                failedHere.add(observer);
+                failed.increment();
+            }
+            long took = System.nanoTime() - start;
+            updateNanos.add(took);
+            maxUpdateNanos.accumulateAndGet(took, Math::max);
+        }
+        deliveredHere.addAndGet(ok);
+        delivered.add(ok);
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public double getAverageUpdateMicros() {
+        long count = delivered.sum() + failed.sum();
+        return count == 0 ? 0 : updateNanos.sum() / 1e3 / count;
+    }
+
+    public double getMaxUpdateMicros() {
+        return maxUpdateNanos.get() / 1e3;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+}
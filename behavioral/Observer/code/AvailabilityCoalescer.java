@@ -0,0 +1,108 @@
+package behavioral.Observer.code;
+
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Collapses a burst of availability updates into one delivery of the latest state.
+// The first update of a burst opens a window; when it closes only the latest state is published,
+// and nothing at all if it equals the state published last time (e.g. a flap back and forth).
+// All coalescers share one small scheduler, so many products do not mean many threads.
+public class AvailabilityCoalescer implements AutoCloseable {
+    private static final ScheduledExecutorService SHARED_SCHEDULER = sharedScheduler();
+
+    private final long windowMillis;
+    private final Consumer<String> publisher;
+    private final ScheduledExecutorService scheduler;
+    // held while publishing, so two publishes of this coalescer never overlap even on a pool
+    private final Object publishLock = new Object();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private String lastPublished;
+    private String latest;
+    private ScheduledFuture<?> window;
+    private boolean closed;
+
+    public AvailabilityCoalescer(long windowMillis, String currentState, Consumer<String> publisher) {
+        this(windowMillis, currentState, publisher, SHARED_SCHEDULER);
+    }
+
+    public AvailabilityCoalescer(long windowMillis, String currentState, Consumer<String> publisher,
+            ScheduledExecutorService scheduler) {
+        this.windowMillis = windowMillis;
+        this.lastPublished = currentState;
+        this.latest = currentState;
+        this.publisher = publisher;
+        this.scheduler = scheduler;
+    }
+
+    private static ScheduledExecutorService sharedScheduler() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newScheduledThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+            Thread thread = new Thread(runnable, "availability-coalescer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void submit(String state) {
+        received.incrementAndGet();
+        synchronized (this) {
+            latest = state;
+            if (!closed) {
+                if (window == null) {
+                    window = scheduler.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+        }
+        // closed: there is no window any more, publish right away
+        flush();
+    }
+
+    private void flush() {
+        synchronized (publishLock) {
+            String state;
+            synchronized (this) {
+                window = null;
+                if (Objects.equals(latest, lastPublished)) {
+                    return;
+                }
+                state = latest;
+                lastPublished = state;
+            }
+            published.incrementAndGet();
+            publisher.accept(state);
+        }
+    }
+
+    public long getReceived() {
+        return received.get();
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    // publishes a state still waiting in an open window, later submits are published without coalescing;
+    // the shared scheduler is not shut down
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (window != null) {
+                window.cancel(false);
+            }
+        }
+        flush();
+    }
+
+}
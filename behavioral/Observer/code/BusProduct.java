@@ -0,0 +1,43 @@
+package behavioral.Observer.code;
+
+import java.util.concurrent.CompletableFuture;
+
+// A Product whose subscribers live in a shared EventBus under the product id,
+// instead of in a list owned by the product.
+public class BusProduct implements Subject {
+    private final String productId;
+    private volatile String availability;
+    private final EventBus eventBus;
+
+    public BusProduct(String productId, String availability, EventBus eventBus) {
+        this.productId = productId;
+        this.availability = availability;
+        this.eventBus = eventBus;
+    }
+
+    @Override
+    public void registerObserver(Observer observer) {
+        eventBus.subscribe(observer, productId);
+    }
+
+    @Override
+    public void removeObserver(Observer observer) {
+        eventBus.unsubscribe(observer, productId);
+    }
+
+    @Override
+    public void notifyObservers() {
+        publish();
+    }
+
+    public CompletableFuture<DeliveryReport> publish() {
+        return eventBus.publish(productId, "Hello " + productId + " is now " + availability);
+    }
+
+    @Override
+    public void setAvailability(String availability) {
+        this.availability = availability;
+        publish();
+    }
+
+}
@@ -0,0 +1,32 @@
+package behavioral.Observer.code;
+
+import java.util.List;
+
+public class DeliveryReport {
+    private final int delivered;
+    private final List<Observer> failedObservers;
+    private final long elapsedNanos;
+
+    public DeliveryReport(int delivered, List<Observer> failedObservers, long elapsedNanos) {
+        this.delivered = delivered;
+        this.failedObservers = failedObservers;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getDelivered() {
+        return delivered;
+    }
+
+    public int getFailed() {
+        return failedObservers.size();
+    }
+
+    public List<Observer> getFailedObservers() {
+        return failedObservers;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+}
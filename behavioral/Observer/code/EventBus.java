@@ -0,0 +1,178 @@
+package behavioral.Observer.code;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+// Topics (product ids) are hashed onto a fixed number of partitions, each served by one thread,
+// so messages of one topic are delivered in publish order while different partitions run in parallel.
+// Only topics with subscribers take memory, and an inverted index from observer to its topics
+// makes bulk unsubscribe cost the observer's own subscriptions, not the number of products.
+// A topic is just a copy-on-write array of its observers, published lock-free; subscribing copies it,
+// which suits many topics with few subscribers each. Observers are told apart by identity everywhere,
+// like ObserverRegistry does. All changes for one subscriber run inside its index entry's compute,
+// so a subscribe racing an unsubscribeAll cannot leave a topic the index does not know about.
+public class EventBus implements AutoCloseable {
+    private final ExecutorService[] partitions;
+    private final ConcurrentHashMap<String, Observer[]> topics = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Subscriber, Set<String>> topicsBySubscriber = new ConcurrentHashMap<>();
+    private final LongAdder failed = new LongAdder();
+
+    public EventBus(int partitionCount) {
+        this.partitions = new ExecutorService[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            String threadName = "event-bus-" + i;
+            partitions[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void subscribe(Observer observer, String topic) {
+        topicsBySubscriber.compute(new Subscriber(observer), (key, subscribed) -> {
+            Set<String> target = subscribed != null ? subscribed : ConcurrentHashMap.newKeySet();
+            if (target.add(topic)) {
+                addToTopic(observer, topic);
+            }
+            return target;
+        });
+    }
+
+    public void subscribe(Observer observer, Collection<String> topicIds) {
+        for (String topic : topicIds) {
+            subscribe(observer, topic);
+        }
+    }
+
+    public void unsubscribe(Observer observer, String topic) {
+        topicsBySubscriber.computeIfPresent(new Subscriber(observer), (key, subscribed) -> {
+            if (subscribed.remove(topic)) {
+                removeFromTopic(observer, topic);
+            }
+            return subscribed.isEmpty() ? null : subscribed;
+        });
+    }
+
+    public void unsubscribe(Observer observer, Collection<String> topicIds) {
+        for (String topic : topicIds) {
+            unsubscribe(observer, topic);
+        }
+    }
+
+    public void unsubscribeAll(Observer observer) {
+        topicsBySubscriber.computeIfPresent(new Subscriber(observer), (key, subscribed) -> {
+            for (String topic : subscribed) {
+                removeFromTopic(observer, topic);
+            }
+            return null;
+        });
+    }
+
+    public Set<String> topicsOf(Observer observer) {
+        Set<String> subscribed = topicsBySubscriber.get(new Subscriber(observer));
+        return subscribed == null ? Collections.emptySet() : Collections.unmodifiableSet(subscribed);
+    }
+
+    // an observer that throws is reported and skipped, the rest of the topic still gets the message
+    public CompletableFuture<DeliveryReport> publish(String topic, String message) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            Observer[] observers = topics.get(topic);
+            int delivered = 0;
+            List<Observer> failedHere = new ArrayList<>();
+            if (observers != null) {
+                for (Observer observer : observers) {
+                    try {
+                        observer.update(message);
+                        delivered++;
+                    } catch (RuntimeException e) {
+                        failedHere.add(observer);
+                        failed.increment();
+                    }
+                }
+            }
+            return new DeliveryReport(delivered, failedHere, System.nanoTime() - start);
+        }, partitionOf(topic));
+    }
+
+    public long failedDeliveries() {
+        return failed.sum();
+    }
+
+    public int topicCount() {
+        return topics.size();
+    }
+
+    // called only under the subscriber's index entry, which already rules out a duplicate
+    private void addToTopic(Observer observer, String topic) {
+        topics.compute(topic, (key, observers) -> {
+            if (observers == null) {
+                return new Observer[] {observer};
+            }
+            Observer[] grown = Arrays.copyOf(observers, observers.length + 1);
+            grown[observers.length] = observer;
+            return grown;
+        });
+    }
+
+    private void removeFromTopic(Observer observer, String topic) {
+        // drop the topic entry with its last subscriber so memory follows subscriptions
+        topics.computeIfPresent(topic, (key, observers) -> {
+            for (int i = 0; i < observers.length; i++) {
+                if (observers[i] == observer) {
+                    if (observers.length == 1) {
+                        return null;
+                    }
+                    Observer[] shrunk = new Observer[observers.length - 1];
+                    System.arraycopy(observers, 0, shrunk, 0, i);
+                    System.arraycopy(observers, i + 1, shrunk, i, observers.length - i - 1);
+                    return shrunk;
+                }
+            }
+            return observers;
+        });
+    }
+
+    private ExecutorService partitionOf(String topic) {
+        int hash = topic.hashCode();
+        hash ^= hash >>> 16;
+        return partitions[Math.floorMod(hash, partitions.length)];
+    }
+
+    // index key comparing observers by identity, whatever equals they define
+    private static final class Subscriber {
+        private final Observer observer;
+
+        Subscriber(Observer observer) {
+            this.observer = observer;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(observer);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Subscriber && ((Subscriber) o).observer == observer;
+        }
+    }
+
+    @Override
+    public void close() {
+        for (ExecutorService partition : partitions) {
+            partition.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,342 @@
+package behavioral.Observer.code;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+// Append-only, segmented log of notifications with a committed offset per subscriber.
+// A subscriber that failed or was offline catches up with replay() from its last offset,
+// so the producer never has to retry a delivery.
+//
+// append() only queues the message; one writer thread writes everything queued so far with a
+// single write and a single fsync (group commit) and then completes the futures with their offsets.
+// Segment files are named after the offset of their first record; a record is
+// [int length][int crc32][UTF-8 message], and a torn record at the end is cut off on open.
+// A write that fails half way is cut off right away; if even that fails the log stops taking appends.
+// Live deliveries are acknowledged with acknowledge(), so replay() resumes after the last record a
+// subscriber got live. Delivery is at least once: an acknowledgement that arrives out of order is
+// dropped and that record comes again with the next replay.
+public class NotificationLog implements AutoCloseable {
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_BATCH = 4096;
+    private static final Pattern SUBSCRIBER_ID = Pattern.compile("[A-Za-z0-9._-]+");
+    // queued by close(), everything appended before it is still written
+    private static final Pending STOP = new Pending(new byte[0]);
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final ConcurrentSkipListMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final CRC32 crc = new CRC32();
+    // committed offsets read or written so far, so acknowledging a live delivery needs no file read
+    private final ConcurrentHashMap<String, Long> committed = new ConcurrentHashMap<>();
+    // a commit and an acknowledge of the same subscriber must not interleave
+    private final ConcurrentHashMap<String, Object> subscriberLocks = new ConcurrentHashMap<>();
+    private FileChannel active;
+    private long nextOffset;
+    // records below this offset are on disk and may be read
+    private volatile long durableEnd;
+    private boolean closed;
+    // why the writer stopped before close(), given to every later append
+    private Throwable failure;
+
+    public NotificationLog(Path directory, long segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory.resolve("offsets"));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.log")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.put(Long.parseLong(name.substring(0, name.length() - 4)), file);
+            }
+        }
+        if (segments.isEmpty()) {
+            openSegment(0);
+        } else {
+            Map.Entry<Long, Path> last = segments.lastEntry();
+            active = FileChannel.open(last.getValue(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            nextOffset = last.getKey() + recoverSegment(active);
+        }
+        durableEnd = nextOffset;
+        writer = new Thread(this::writeLoop, "notification-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // completes with the record's offset once it is on disk
+    public CompletableFuture<Long> append(String message) {
+        Pending pending = new Pending(message.getBytes(StandardCharsets.UTF_8));
+        synchronized (queue) {
+            if (closed) {
+                pending.future.completeExceptionally(failure != null
+                        ? new IllegalStateException("notification log stopped writing", failure)
+                        : new IllegalStateException("notification log is closed"));
+                return pending.future;
+            }
+            queue.add(pending);
+        }
+        return pending.future;
+    }
+
+    // delivers every record from the subscriber's committed offset onwards and commits where it stopped;
+    // an update that throws ends the replay and that record is the first one of the next replay
+    public int replay(String subscriberId, Observer observer) throws IOException {
+        long offset = committedOffset(subscriberId);
+        long end = durableEnd;
+        int delivered = 0;
+        try {
+            while (offset < end) {
+                Map.Entry<Long, Path> segment = segments.floorEntry(offset);
+                try (FileChannel channel = FileChannel.open(segment.getValue(), StandardOpenOption.READ)) {
+                    long recordOffset = segment.getKey();
+                    long position = 0;
+                    ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+                    while (offset < end && readFully(channel, header.clear(), position)) {
+                        int length = header.getInt(0);
+                        if (recordOffset == offset) {
+                            ByteBuffer payload = ByteBuffer.allocate(length);
+                            readFully(channel, payload, position + RECORD_HEADER_BYTES);
+                            observer.update(new String(payload.array(), StandardCharsets.UTF_8));
+                            delivered++;
+                            offset++;
+                        }
+                        recordOffset++;
+                        position += RECORD_HEADER_BYTES + length;
+                    }
+                }
+            }
+        } finally {
+            commit(subscriberId, offset);
+        }
+        return delivered;
+    }
+
+    public long committedOffset(String subscriberId) throws IOException {
+        Long cached = committed.get(subscriberId);
+        if (cached != null) {
+            return cached;
+        }
+        Path file = offsetFile(subscriberId);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(file)).getLong();
+    }
+
+    // write to a temp file and rename, so a crash never leaves a half written offset
+    public void commit(String subscriberId, long offset) throws IOException {
+        Path file = offsetFile(subscriberId);
+        synchronized (subscriberLock(subscriberId)) {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, ByteBuffer.allocate(Long.BYTES).putLong(offset).array());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed.put(subscriberId, offset);
+        }
+    }
+
+    // the subscriber got the record at this offset live; commits past it when it has every record before,
+    // otherwise leaves the gap for replay(). Returns whether the committed offset moved.
+    public boolean acknowledge(String subscriberId, long offset) throws IOException {
+        synchronized (subscriberLock(subscriberId)) {
+            if (committedOffset(subscriberId) != offset) {
+                return false;
+            }
+            commit(subscriberId, offset + 1);
+            return true;
+        }
+    }
+
+    private Object subscriberLock(String subscriberId) {
+        return subscriberLocks.computeIfAbsent(subscriberId, id -> new Object());
+    }
+
+    public long endOffset() {
+        return durableEnd;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (queue) {
+            if (!closed) {
+                closed = true;
+                queue.add(STOP);
+            }
+        }
+        // a writer that already stopped on its own has failed everything queued, the join returns at once
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        active.close();
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                stopWriting(batch, new InterruptedException("notification log writer was interrupted"));
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - batch.size());
+            stop = batch.remove(STOP);
+            if (!batch.isEmpty() && !writeBatch(batch)) {
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    // no more appends are taken; everything still queued, and the given batch, fails with the cause
+    private void stopWriting(List<Pending> batch, Throwable cause) {
+        synchronized (queue) {
+            closed = true;
+            failure = cause;
+        }
+        queue.drainTo(batch);
+        batch.remove(STOP);
+        for (Pending pending : batch) {
+            pending.future.completeExceptionally(cause);
+        }
+        batch.clear();
+    }
+
+    // false when the log can no longer be written and the writer has to stop
+    private boolean writeBatch(List<Pending> batch) {
+        int bytes = 0;
+        for (Pending pending : batch) {
+            bytes += RECORD_HEADER_BYTES + pending.payload.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        for (Pending pending : batch) {
+            crc.reset();
+            crc.update(pending.payload);
+            buffer.putInt(pending.payload.length).putInt((int) crc.getValue()).put(pending.payload);
+        }
+        buffer.flip();
+        try {
+            if (active.size() > 0 && active.size() + bytes > segmentBytes) {
+                active.close();
+                openSegment(nextOffset);
+            }
+        } catch (IOException e) {
+            // the old segment is closed and there is no new one
+            stopWriting(batch, new UncheckedIOException(e));
+            return false;
+        }
+        long goodSize;
+        try {
+            goodSize = active.size();
+        } catch (IOException e) {
+            stopWriting(batch, new UncheckedIOException(e));
+            return false;
+        }
+        try {
+            long position = goodSize;
+            while (buffer.hasRemaining()) {
+                position += active.write(buffer, position);
+            }
+            active.force(false);
+        } catch (IOException e) {
+            // cut off what part of the batch did reach the file, or the next batch would land behind it
+            try {
+                active.truncate(goodSize);
+                active.force(false);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+                stopWriting(batch, new UncheckedIOException(e));
+                return false;
+            }
+            for (Pending pending : batch) {
+                pending.future.completeExceptionally(new UncheckedIOException(e));
+            }
+            return true;
+        }
+        long first = nextOffset;
+        nextOffset += batch.size();
+        durableEnd = nextOffset;
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future.complete(first + i);
+        }
+        return true;
+    }
+
+    private void openSegment(long baseOffset) throws IOException {
+        Path file = directory.resolve(String.format("%020d.log", baseOffset));
+        active = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments.put(baseOffset, file);
+        nextOffset = baseOffset;
+    }
+
+    // counts the valid records and cuts off a torn or corrupt tail
+    private long recoverSegment(FileChannel channel) throws IOException {
+        long position = 0;
+        long records = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        while (readFully(channel, header.clear(), position)) {
+            int length = header.getInt(0);
+            if (length < 0 || position + RECORD_HEADER_BYTES + length > channel.size()) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, position + RECORD_HEADER_BYTES);
+            crc.reset();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+            position += RECORD_HEADER_BYTES + length;
+            records++;
+        }
+        channel.truncate(position);
+        return records;
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Path offsetFile(String subscriberId) {
+        if (!SUBSCRIBER_ID.matcher(subscriberId).matches()) {
+            throw new IllegalArgumentException("subscriber id may only use letters, digits, '.', '_' and '-': " + subscriberId);
+        }
+        return directory.resolve("offsets").resolve(subscriberId + ".offset");
+    }
+
+    private static class Pending {
+        private final byte[] payload;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        Pending(byte[] payload) {
+            this.payload = payload;
+        }
+    }
+
+}
@@ -0,0 +1,209 @@
+package behavioral.Observer.code;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Thread-safe observer registry. Register and unregister are O(1) hash operations.
+// Notification walks a cached snapshot array without any lock; a change only bumps a modification
+// count, and the next notification rebuilds the snapshot once. Every snapshot carries the count it was
+// built from and only replaces an older one, so a slow rebuild can never publish a stale view last.
+// Subscriptions can be weak (the observer may be garbage collected) or expire after a TTL.
+// Delivery order is not registration order.
+public class ObserverRegistry {
+    private static final Subscription[] EMPTY = new Subscription[0];
+
+    private final ConcurrentHashMap<Key, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Observer> collected = new ReferenceQueue<>();
+    private final AtomicLong modCount = new AtomicLong();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(0, EMPTY));
+
+    public void register(Observer observer) {
+        add(new Subscription(observer, false, Long.MAX_VALUE));
+    }
+
+    public void registerWeak(Observer observer) {
+        add(new Subscription(observer, true, Long.MAX_VALUE));
+    }
+
+    public void register(Observer observer, long ttlMillis) {
+        add(new Subscription(observer, false, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public boolean unregister(Observer observer) {
+        expungeCollected();
+        if (subscriptions.remove(new Key(observer)) == null) {
+            return false;
+        }
+        modCount.incrementAndGet();
+        return true;
+    }
+
+    public void notifyAll(String message) {
+        long now = System.currentTimeMillis();
+        for (Subscription subscription : snapshot()) {
+            Observer observer = subscription.observer(now);
+            if (observer != null) {
+                observer.update(message);
+            }
+        }
+    }
+
+    // live observers at this moment, e.g. for handing to an AsyncNotificationDispatcher
+    public List<Observer> observers() {
+        long now = System.currentTimeMillis();
+        Subscription[] current = snapshot();
+        List<Observer> observers = new ArrayList<>(current.length);
+        for (Subscription subscription : current) {
+            Observer observer = subscription.observer(now);
+            if (observer != null) {
+                observers.add(observer);
+            }
+        }
+        return observers;
+    }
+
+    public int size() {
+        return subscriptions.size();
+    }
+
+    private void add(Subscription subscription) {
+        expungeCollected();
+        subscriptions.put(subscription.key, subscription);
+        modCount.incrementAndGet();
+    }
+
+    private Subscription[] snapshot() {
+        // also on the notify path, so collected weak observers leave the map even when nobody registers
+        expungeCollected();
+        Snapshot current = snapshot.get();
+        // read the count before the map: a change made during the rebuild leaves the result outdated
+        long version = modCount.get();
+        if (current.version == version) {
+            return current.subscriptions;
+        }
+        long now = System.currentTimeMillis();
+        List<Subscription> live = new ArrayList<>(subscriptions.size());
+        for (Subscription subscription : subscriptions.values()) {
+            if (subscription.expiresAt <= now) {
+                if (subscriptions.remove(subscription.key, subscription)) {
+                    modCount.incrementAndGet();
+                }
+            } else {
+                live.add(subscription);
+            }
+        }
+        Snapshot rebuilt = new Snapshot(version, live.toArray(EMPTY));
+        while (true) {
+            Snapshot seen = snapshot.get();
+            if (seen.version >= version) {
+                // a concurrent rebuild saw the same or a later state, keep that one
+                return seen.subscriptions;
+            }
+            if (snapshot.compareAndSet(seen, rebuilt)) {
+                return rebuilt.subscriptions;
+            }
+        }
+    }
+
+    private void expungeCollected() {
+        Reference<? extends Observer> reference;
+        while ((reference = collected.poll()) != null) {
+            subscriptions.remove(((KeyedReference) reference).key);
+            modCount.incrementAndGet();
+        }
+    }
+
+    private static class Snapshot {
+        private final long version;
+        private final Subscription[] subscriptions;
+
+        Snapshot(long version, Subscription[] subscriptions) {
+            this.version = version;
+            this.subscriptions = subscriptions;
+        }
+    }
+
+    private class Subscription {
+        private final Observer strong;
+        private final WeakReference<Observer> weak;
+        private final long expiresAt;
+        private final Key key;
+
+        Subscription(Observer observer, boolean weakly, long expiresAt) {
+            this.expiresAt = expiresAt;
+            if (weakly) {
+                this.strong = null;
+                this.key = new Key(System.identityHashCode(observer), null);
+                this.weak = new KeyedReference(observer, collected, key);
+                key.target = weak;
+            } else {
+                this.strong = observer;
+                this.key = new Key(System.identityHashCode(observer), observer);
+                this.weak = null;
+            }
+        }
+
+        // null when the observer was collected or the subscription expired
+        Observer observer(long now) {
+            if (now >= expiresAt) {
+                // the next snapshot() drops it from the map
+                modCount.incrementAndGet();
+                return null;
+            }
+            return strong != null ? strong : weak.get();
+        }
+    }
+
+    // a weak reference that remembers its map key, so a collected observer can be removed in O(1)
+    private static class KeyedReference extends WeakReference<Observer> {
+        private final Key key;
+
+        KeyedReference(Observer observer, ReferenceQueue<Observer> queue, Key key) {
+            super(observer, queue);
+            this.key = key;
+        }
+    }
+
+    // identity key that works for strong and weak subscriptions alike
+    private static class Key {
+        private final int hash;
+        private Object target;
+
+        Key(Observer observer) {
+            this(System.identityHashCode(observer), observer);
+        }
+
+        Key(int hash, Object target) {
+            this.hash = hash;
+            this.target = target;
+        }
+
+        Object referent() {
+            return target instanceof WeakReference ? ((WeakReference<?>) target).get() : target;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Object referent = referent();
+            return referent != null && referent == ((Key) o).referent();
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package behavioral.Observer.code;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Churn threads register and unregister observers while one thread keeps notifying a base set.
+// Compares ObserverRegistry with a CopyOnWriteArrayList, which copies the whole list on every change.
+// Run: java behavioral.Observer.code.ObserverRegistryBenchmark [baseObservers] [churnThreads] [millis]
+public class ObserverRegistryBenchmark {
+
+    interface Registry {
+        void register(Observer observer);
+        void unregister(Observer observer);
+        void notifyAll(String message);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int base = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int churnThreads = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        long millis = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+
+        ObserverRegistry registry = new ObserverRegistry();
+        Registry concurrent = new Registry() {
+            public void register(Observer observer) { registry.register(observer); }
+            public void unregister(Observer observer) { registry.unregister(observer); }
+            public void notifyAll(String message) { registry.notifyAll(message); }
+        };
+        CopyOnWriteArrayList<Observer> list = new CopyOnWriteArrayList<>();
+        Registry copyOnWrite = new Registry() {
+            public void register(Observer observer) { list.add(observer); }
+            public void unregister(Observer observer) { list.remove(observer); }
+            public void notifyAll(String message) { list.forEach(observer -> observer.update(message)); }
+        };
+
+        System.out.printf("%-22s %16s %16s%n", "registry", "churn ops/s", "notifies/s");
+        for (int round = 0; round < 2; round++) { // first round is warm-up
+            run("ObserverRegistry", concurrent, base, churnThreads, millis, round > 0);
+            run("CopyOnWriteArrayList", copyOnWrite, base, churnThreads, millis, round > 0);
+        }
+    }
+
+    private static void run(String name, Registry registry, int base, int churnThreads, long millis, boolean print)
+            throws InterruptedException {
+        LongAdder received = new LongAdder();
+        List<Observer> baseObservers = new ArrayList<>();
+        for (int i = 0; i < base; i++) {
+            Observer observer = message -> received.increment();
+            baseObservers.add(observer);
+            registry.register(observer);
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder churnOps = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < churnThreads; t++) {
+            Thread churn = new Thread(() -> {
+                Observer[] mine = new Observer[64];
+                for (int i = 0; i < mine.length; i++) {
+                    mine[i] = message -> received.increment();
+                }
+                while (running.get()) {
+                    for (Observer observer : mine) {
+                        registry.register(observer);
+                    }
+                    for (Observer observer : mine) {
+                        registry.unregister(observer);
+                    }
+                    churnOps.add(2L * mine.length);
+                }
+            });
+            threads.add(churn);
+            churn.start();
+        }
+        long notifies = 0;
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        while (System.nanoTime() < deadline) {
+            registry.notifyAll("restocked");
+            notifies++;
+        }
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (Observer observer : baseObservers) {
+            registry.unregister(observer);
+        }
+        if (print) {
+            System.out.printf("%-22s %16d %16d%n", name, churnOps.sum() * 1000 / millis, notifies * 1000 / millis);
+        }
+    }
+
+}
@@ -1,40 +1,198 @@
 package behavioral.Observer.code;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Product implements Subject {
     private String name;
-    private String availability;
-    private List<Observer> observers = new ArrayList<>();
+    private volatile String availability;
+    private final ObserverRegistry observers = new ObserverRegistry();
+    // observers that only want certain changes, grouped so a change is matched once per group
+    private final Map<Transition, ObserverRegistry> transitionObservers = new ConcurrentHashMap<>();
+    private AsyncNotificationDispatcher dispatcher;
+    private volatile AvailabilityCoalescer coalescer;
+    private NotificationLog notificationLog;
+    // subscriber id -> observer whose live deliveries are acknowledged in the notification log
+    private final Map<String, Observer> durableObservers = new ConcurrentHashMap<>();
 
     public Product(String name, String availability) {
         this.name = name;
         this.availability = availability;
     }
 
+    // with a dispatcher, setAvailability hands the fan-out to its worker pool and returns at once
+    public Product(String name, String availability, AsyncNotificationDispatcher dispatcher) {
+        this(name, availability);
+        this.dispatcher = dispatcher;
+    }
+
+    // from now on setAvailability only records the state; the latest one is published once per window.
+    // Enabling it again replaces the window; the old coalescer publishes what it still holds and is closed.
+    public synchronized void enableCoalescing(long windowMillis) {
+        AvailabilityCoalescer previous = coalescer;
+        if (previous != null) {
+            // first, so the new window starts from the state the old one published last
+            previous.close();
+        }
+        coalescer = new AvailabilityCoalescer(windowMillis, availability, this::publish);
+    }
+
+    // every notification is also appended to the log, so subscribers that missed it can replay it
+    public void enableNotificationLog(NotificationLog notificationLog) {
+        this.notificationLog = notificationLog;
+    }
+
     @Override
     public void registerObserver(Observer observer) {
-        observers.add(observer);
+        observers.register(observer);
+    }
+
+    // the product does not keep a weakly registered observer alive
+    public void registerWeakObserver(Observer observer) {
+        observers.registerWeak(observer);
+    }
+
+    public void registerObserver(Observer observer, long ttlMillis) {
+        observers.register(observer, ttlMillis);
+    }
+
+    public void registerObserver(Observer observer, Transition transition) {
+        transitionObservers.computeIfAbsent(transition, t -> new ObserverRegistry()).register(observer);
+    }
+
+    // every live delivery the observer takes is acknowledged under subscriberId, so
+    // notificationLog.replay(subscriberId, observer) only hands over what it missed
+    public void registerDurableObserver(String subscriberId, Observer observer) {
+        if (notificationLog == null) {
+            throw new IllegalStateException("product " + name + " has no notification log, enable one first");
+        }
+        durableObservers.put(subscriberId, observer);
     }
 
     @Override
     public void removeObserver(Observer observer) {
-        observers.remove(observer);
+        observers.unregister(observer);
+        for (ObserverRegistry registry : transitionObservers.values()) {
+            registry.unregister(observer);
+        }
+        durableObservers.values().removeIf(durable -> durable == observer);
     }
 
     @Override
     public void notifyObservers() {
+        String message = message();
+        notifyObservers(message, log(message));
+    }
+
+    private void notifyObservers(String message, CompletableFuture<Long> appended) {
         System.out.println("Notifying to all the subscribers when product became available");
-        for (Observer observer : observers) {
-            observer.update("Hello "+ name+ " is now " + availability);
+        observers.notifyAll(message);
+        for (Observer durable : durableRecipients(appended)) {
+            try {
+                durable.update(message);
+            } catch (RuntimeException e) {
+                // not acknowledged, the next replay() hands it over again
+            }
         }
     }
 
+    public CompletableFuture<DeliveryReport> notifyObserversAsync() {
+        String message = message();
+        CompletableFuture<Long> appended = log(message);
+        List<Observer> recipients = observers.observers();
+        recipients.addAll(durableRecipients(appended));
+        return requireDispatcher().dispatch(message, recipients);
+    }
+
     @Override
     public void setAvailability(String availability) {
+        AvailabilityCoalescer coalescer = this.coalescer;
+        if (coalescer != null) {
+            coalescer.submit(availability);
+            return;
+        }
+        publish(availability);
+    }
+
+    // publishes right away, without coalescing
+    public CompletableFuture<DeliveryReport> setAvailabilityAsync(String availability) {
+        AsyncNotificationDispatcher dispatcher = requireDispatcher();
+        String previous = this.availability;
         this.availability = availability;
-        notifyObservers();
+        String message = message();
+        CompletableFuture<Long> appended = log(message);
+        List<Observer> recipients = observers.observers();
+        for (Map.Entry<Transition, ObserverRegistry> entry : transitionObservers.entrySet()) {
+            if (entry.getKey().matches(previous, availability)) {
+                recipients.addAll(entry.getValue().observers());
+            }
+        }
+        recipients.addAll(durableRecipients(appended));
+        return dispatcher.dispatch(message, recipients);
+    }
+
+    private void publish(String availability) {
+        if (dispatcher != null) {
+            setAvailabilityAsync(availability);
+            return;
+        }
+        String previous = this.availability;
+        this.availability = availability;
+        String message = message();
+        notifyObservers(message, log(message));
+        for (Map.Entry<Transition, ObserverRegistry> entry : transitionObservers.entrySet()) {
+            if (entry.getKey().matches(previous, availability)) {
+                entry.getValue().notifyAll(message);
+            }
+        }
+    }
+
+    private AsyncNotificationDispatcher requireDispatcher() {
+        if (dispatcher == null) {
+            throw new IllegalStateException("product " + name
+                    + " has no AsyncNotificationDispatcher, create it with one or use the synchronous methods");
+        }
+        return dispatcher;
+    }
+
+    // null without a notification log
+    private CompletableFuture<Long> log(String message) {
+        return notificationLog == null ? null : notificationLog.append(message);
+    }
+
+    // durable observers wrapped so that a delivery that returns normally is acknowledged once the
+    // record's offset is known; a record that never reached the log is not acknowledged at all
+    private List<Observer> durableRecipients(CompletableFuture<Long> appended) {
+        List<Observer> recipients = new ArrayList<>(durableObservers.size());
+        if (appended == null) {
+            return recipients;
+        }
+        NotificationLog log = notificationLog;
+        for (Map.Entry<String, Observer> entry : durableObservers.entrySet()) {
+            String subscriberId = entry.getKey();
+            Observer observer = entry.getValue();
+            recipients.add(message -> {
+                observer.update(message);
+                appended.thenAccept(offset -> acknowledge(log, subscriberId, offset));
+            });
+        }
+        return recipients;
+    }
+
+    private static void acknowledge(NotificationLog log, String subscriberId, long offset) {
+        try {
+            log.acknowledge(subscriberId, offset);
+        } catch (IOException e) {
+            // the offset stays where it was, the record is delivered again by the next replay()
+        }
+    }
+
+    private String message() {
+        return "Hello "+ name+ " is now " + availability;
     }
 
 }
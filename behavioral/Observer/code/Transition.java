@@ -0,0 +1,52 @@
+package behavioral.Observer.code;
+
+import java.util.Objects;
+
+// Which availability changes an observer cares about, e.g. Transition.to("available") for "became available".
+// Only real changes match, an update to the same state never does.
+public class Transition {
+    private final String from;
+    private final String to;
+
+    private Transition(String from, String to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public static Transition to(String state) {
+        return new Transition(null, state);
+    }
+
+    public static Transition from(String state) {
+        return new Transition(state, null);
+    }
+
+    public static Transition between(String from, String to) {
+        return new Transition(from, to);
+    }
+
+    public boolean matches(String previous, String current) {
+        if (Objects.equals(previous, current)) {
+            return false;
+        }
+        return (from == null || from.equals(previous)) && (to == null || to.equals(current));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Transition)) {
+            return false;
+        }
+        Transition other = (Transition) o;
+        return Objects.equals(from, other.from) && Objects.equals(to, other.to);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(from, to);
+    }
+
+}
@@ -11,6 +11,15 @@ public class Circle {
         System.out.println("New Circle Object Created");
     }
 
+    // copy constructor used by PrototypeRegistry, just copies the fields (no container, no print)
+    public Circle(Circle other) {
+        this.radius = other.radius;
+    }
+
+    public Circle copy() {
+        return new Circle(this);
+    }
+
     public void draw() {
         System.out.println("Drawing a Circle with radius " + radius);
     }
@@ -18,4 +27,8 @@ public class Circle {
     public void setRadius(int radius) {
         this.radius = radius;
     }
+
+    public int getRadius() {
+        return radius;
+    }
 }
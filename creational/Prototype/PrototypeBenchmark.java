@@ -0,0 +1,61 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+// Compares new Circle objects from the container (getBean of a prototype bean) with copies from
+// the PrototypeRegistry, with and without a prefilled pool.
+// Prints operations per second and bytes allocated per object (from the JVM's per thread allocation counter).
+// "registry prefill+take" times prefill() and handing out every copy, so it is the real cost of a copy
+// made ahead; "pool take only" leaves the prefill out and shows what a caller waits for once the pool is full.
+// System.out is muted while measuring, otherwise the print in Circle() would be all we measure.
+public class PrototypeBenchmark {
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(Circle.class);
+        Circle big = new Circle();
+        big.setRadius(50);
+        PrototypeRegistry<Circle> registry = new PrototypeRegistry<>(Circle::new);
+        registry.register("big", big);
+
+        String[] names = {"container getBean", "registry copy", "registry prefill+take", "pool take only*"};
+        double[][] results = new double[names.length][];
+        for (int round = 0; round < 3; round++) {
+            results[0] = measure(count, () -> { }, () -> context.getBean(Circle.class));
+            results[1] = measure(count, () -> { }, () -> registry.create("big"));
+            results[2] = measure(count, () -> registry.prefill("big", count), () -> registry.create("big"));
+            registry.prefill("big", count);
+            results[3] = measure(count, () -> { }, () -> registry.create("big"));
+        }
+        context.close();
+        System.setOut(out);
+
+        System.out.printf("%-22s %15s %15s%n", "", "ops/s", "bytes/object");
+        for (int i = 0; i < names.length; i++) {
+            System.out.printf("%-22s %,15.0f %,15.1f%n", names[i], results[i][0], results[i][1]);
+        }
+        System.out.println("* copies made by prefill() before timing started: the cost of taking one, not of cloning");
+    }
+
+    // {operations per second, bytes allocated per operation}; setup runs inside the measured region
+    private static double[] measure(int count, Runnable setup, Supplier<Object> create) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        long bytesBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        setup.run();
+        for (int i = 0; i < count; i++) {
+            sink = create.get();
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+        return new double[] {count * 1e9 / nanos, (double) bytes / count};
+    }
+}
@@ -0,0 +1,58 @@
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.UnaryOperator;
+
+// Keeps configured template objects by name and hands out copies of them.
+// A copy is a plain field copy (copy constructor), much cheaper than asking the
+// Spring container for a new prototype bean every time.
+// prefill() makes copies up front so create() on the hot path is only a queue poll.
+public class PrototypeRegistry<T> {
+    private final UnaryOperator<T> copier;
+    private final Map<String, Template<T>> templates = new ConcurrentHashMap<>();
+
+    public PrototypeRegistry(UnaryOperator<T> copier) {
+        this.copier = copier;
+    }
+
+    // the registry keeps its own copy, changing the object afterwards does not change the template
+    public void register(String name, T template) {
+        templates.put(name, new Template<>(copier.apply(template)));
+    }
+
+    public T create(String name) {
+        Template<T> template = template(name);
+        T ready = template.pool.poll();
+        return ready != null ? ready : copier.apply(template.prototype);
+    }
+
+    public void prefill(String name, int count) {
+        Template<T> template = template(name);
+        for (int i = 0; i < count; i++) {
+            template.pool.add(copier.apply(template.prototype));
+        }
+    }
+
+    public int ready(String name) {
+        return template(name).pool.size();
+    }
+
+    private Template<T> template(String name) {
+        Template<T> template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("No prototype registered with name " + name);
+        }
+        return template;
+    }
+
+    // a new register() replaces the whole template, so old prefilled copies are dropped with it
+    private static class Template<T> {
+        private final T prototype;
+        private final Queue<T> pool = new ConcurrentLinkedQueue<>();
+
+        Template(T prototype) {
+            this.prototype = prototype;
+        }
+    }
+}
@@ -21,7 +21,7 @@ class DatabaseConnection {
 }
 
 // Client Code
-public class SingletonDemo {
+class SingletonDemo {
     public static void main(String[] args) {
         // Try to create multiple instances
         DatabaseConnection db1 = DatabaseConnection.getInstance();
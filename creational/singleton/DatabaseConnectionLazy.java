@@ -0,0 +1,22 @@
+// Same singleton as the other examples but the lazy, thread safe part is done by Lazy<T>.
+// no volatile field, no synchronized block, no holder class to write by hand.
+class DatabaseConnectionLazy {
+    private static final Lazy<DatabaseConnectionLazy> INSTANCE = new Lazy<>(DatabaseConnectionLazy::new);
+
+    private DatabaseConnectionLazy() {
+        System.out.println("Database Connection Initialized.");
+    }
+
+    public static DatabaseConnectionLazy getInstance() {
+        return INSTANCE.get();
+    }
+
+    // init latency, retries and contention of the instance creation
+    static Lazy<DatabaseConnectionLazy> holder() {
+        return INSTANCE;
+    }
+
+    public void connect() {
+        System.out.println("Connected to the database.");
+    }
+}
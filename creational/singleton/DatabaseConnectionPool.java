@@ -0,0 +1,191 @@
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// One shared connection is a bottleneck and one connection per request is too expensive,
+// so the singleton here is a pool of connections instead of a single connection.
+//
+// borrow() and close() on the fast path are only a semaphore CAS and a lock free deque push/pop.
+// A borrower waits at most leaseTimeoutMillis when all maxSize connections are leased.
+// Every connection is validated before it is handed out, and a background task closes connections
+// idle for longer than idleTimeoutMillis while keeping at least minSize open.
+class DatabaseConnectionPool implements AutoCloseable {
+    private static final Lazy<DatabaseConnectionPool> INSTANCE =
+            new Lazy<>(() -> new DatabaseConnectionPool(new InMemoryDatabase(5), 2, 16, 1000, 30_000));
+
+    private final InMemoryDatabase database;
+    private final int minSize;
+    private final long leaseTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final Semaphore leases;
+    // LIFO so the most recently used connections are reused and the rest can go idle and be evicted
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ScheduledExecutorService evictor;
+    private final LongAdder borrowed = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    DatabaseConnectionPool(InMemoryDatabase database, int minSize, int maxSize, long leaseTimeoutMillis,
+            long idleTimeoutMillis) {
+        this.database = database;
+        this.minSize = minSize;
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leases = new Semaphore(maxSize);
+        for (int i = 0; i < minSize; i++) {
+            idle.push(open());
+        }
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(10, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public static DatabaseConnectionPool getInstance() {
+        return INSTANCE.get();
+    }
+
+    // use with try-with-resources, close() gives the connection back to the pool
+    public PooledConnection borrow() throws InterruptedException {
+        if (!leases.tryAcquire() && !leases.tryAcquire(leaseTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            timeouts.increment();
+            throw new IllegalStateException("no connection free within " + leaseTimeoutMillis + " ms");
+        }
+        try {
+            PooledConnection connection;
+            while ((connection = idle.poll()) != null) {
+                if (connection.connection.isValid()) {
+                    break;
+                }
+                validationFailures.increment();
+                discard(connection);
+            }
+            if (connection == null) {
+                connection = open();
+            }
+            connection.leased.set(true);
+            borrowed.increment();
+            return connection;
+        } catch (RuntimeException e) {
+            leases.release();
+            throw e;
+        }
+    }
+
+    private void giveBack(PooledConnection connection) {
+        connection.lastUsedNanos = System.nanoTime();
+        idle.push(connection);
+        leases.release();
+    }
+
+    private PooledConnection open() {
+        PooledConnection connection = new PooledConnection(database.connect());
+        size.incrementAndGet();
+        created.increment();
+        return connection;
+    }
+
+    private void discard(PooledConnection connection) {
+        connection.connection.close();
+        size.decrementAndGet();
+    }
+
+    private void evictIdle() {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        // oldest idle connections sit at the tail of the deque
+        Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+        while (oldestFirst.hasNext() && size.get() > minSize) {
+            PooledConnection connection = oldestFirst.next();
+            if (connection.lastUsedNanos > cutoff) {
+                break;
+            }
+            if (idle.removeLastOccurrence(connection)) {
+                evicted.increment();
+                discard(connection);
+            }
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int idleCount() {
+        return idle.size();
+    }
+
+    public long getBorrowed() {
+        return borrowed.sum();
+    }
+
+    public long getCreated() {
+        return created.sum();
+    }
+
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    public long getValidationFailures() {
+        return validationFailures.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            discard(connection);
+        }
+    }
+
+    class PooledConnection implements AutoCloseable {
+        private final InMemoryDatabase.Connection connection;
+        private volatile long lastUsedNanos = System.nanoTime();
+        private final AtomicBoolean leased = new AtomicBoolean();
+
+        private PooledConnection(InMemoryDatabase.Connection connection) {
+            this.connection = connection;
+        }
+
+        public void put(String key, String value) {
+            checkLeased();
+            connection.put(key, value);
+        }
+
+        public String get(String key) {
+            checkLeased();
+            return connection.get(key);
+        }
+
+        @Override
+        public void close() {
+            // a second close() must not put the connection in the pool twice
+            if (leased.compareAndSet(true, false)) {
+                giveBack(this);
+            }
+        }
+
+        private void checkLeased() {
+            if (!leased.get()) {
+                throw new IllegalStateException("connection was already returned to the pool");
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Hammers the pool from many threads against the in-memory database and checks that
+// it never opens more than maxSize connections, hands out working connections after a
+// database restart and shrinks back to minSize once the load is gone.
+public class DatabaseConnectionPoolLoadTest {
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 2000;
+        int minSize = 2;
+        int maxSize = 8;
+        InMemoryDatabase database = new InMemoryDatabase(5);
+        DatabaseConnectionPool pool = new DatabaseConnectionPool(database, minSize, maxSize, 200, 300);
+
+        AtomicInteger leased = new AtomicInteger();
+        AtomicInteger maxLeased = new AtomicInteger();
+        LongAdder operations = new LongAdder();
+        LongAdder brokenInUse = new LongAdder();
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            new Thread(() -> {
+                int i = 0;
+                while (System.nanoTime() < deadline) {
+                    DatabaseConnectionPool.PooledConnection connection;
+                    try {
+                        connection = pool.borrow();
+                    } catch (IllegalStateException e) {
+                        continue;
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    maxLeased.accumulateAndGet(leased.incrementAndGet(), Math::max);
+                    try {
+                        String key = id + ":" + (i++ & 63);
+                        connection.put(key, "v" + i);
+                        connection.get(key);
+                        operations.increment();
+                    } catch (IllegalStateException e) {
+                        // only a connection that was leased while the database restarted may fail
+                        brokenInUse.increment();
+                    } finally {
+                        leased.decrementAndGet();
+                        connection.close();
+                    }
+                }
+                done.countDown();
+            }, "load-" + t).start();
+        }
+        Thread.sleep(millis / 2);
+        database.restart();
+        done.await();
+
+        System.out.printf("%d threads, %d ms: %,d operations, %d lease timeouts, %d broken while leased%n",
+                threads, millis, operations.sum(), pool.getTimeouts(), brokenInUse.sum());
+        System.out.printf("max leased at once %d (max size %d), connections opened %d, validation failures %d%n",
+                maxLeased.get(), maxSize, database.openedConnections(), pool.getValidationFailures());
+        check(maxLeased.get() <= maxSize, "more connections leased than maxSize");
+        check(pool.size() <= maxSize, "pool grew beyond maxSize");
+        check(brokenInUse.sum() <= maxSize, "a borrower got a broken connection from the pool");
+
+        Thread.sleep(1000);
+        System.out.printf("after idling: size %d, idle %d, evicted %d, open at database %d%n",
+                pool.size(), pool.idleCount(), pool.getEvicted(), database.openConnections());
+        check(pool.size() == minSize, "idle connections were not evicted down to minSize");
+        check(database.openConnections() == pool.size(), "pool leaked connections");
+        pool.close();
+        check(database.openConnections() == 0, "close() left connections open");
+        System.out.println("ok");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
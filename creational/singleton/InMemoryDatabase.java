@@ -0,0 +1,77 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Local stand-in for a real database so the pool can be tried without a server.
+// Opening a connection is slow on purpose (like a TCP + TLS + auth handshake).
+class InMemoryDatabase {
+    private final ConcurrentHashMap<String, String> rows = new ConcurrentHashMap<>();
+    private final long connectMillis;
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger open = new AtomicInteger();
+    private volatile int generation;
+
+    InMemoryDatabase(long connectMillis) {
+        this.connectMillis = connectMillis;
+    }
+
+    Connection connect() {
+        try {
+            Thread.sleep(connectMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while connecting", e);
+        }
+        opened.incrementAndGet();
+        open.incrementAndGet();
+        return new Connection(generation);
+    }
+
+    // simulates a database restart: every connection opened before this call stops working
+    void restart() {
+        generation++;
+    }
+
+    int openedConnections() {
+        return opened.get();
+    }
+
+    int openConnections() {
+        return open.get();
+    }
+
+    class Connection {
+        private final int connectedGeneration;
+        private boolean closed;
+
+        private Connection(int connectedGeneration) {
+            this.connectedGeneration = connectedGeneration;
+        }
+
+        boolean isValid() {
+            return !closed && connectedGeneration == generation;
+        }
+
+        void put(String key, String value) {
+            checkValid();
+            rows.put(key, value);
+        }
+
+        String get(String key) {
+            checkValid();
+            return rows.get(key);
+        }
+
+        void close() {
+            if (!closed) {
+                closed = true;
+                open.decrementAndGet();
+            }
+        }
+
+        private void checkValid() {
+            if (!isValid()) {
+                throw new IllegalStateException("connection is broken");
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Reusable lazy holder so every singleton does not need its own double check locking boilerplate.
+// After the value is set, get() is a single acquire read through a VarHandle, no lock and no volatile write.
+// Only the first callers take the lock. If the initializer throws, nothing is stored and the next get() tries again.
+public final class Lazy<T> implements Supplier<T> {
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Lazy.class, "value", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Supplier<? extends T> initializer;
+    private Object value;
+    private long initNanos;
+    private int attempts;
+    private int failures;
+    // callers that reached the lock and then found the value already created by another thread
+    private final LongAdder contended = new LongAdder();
+
+    public Lazy(Supplier<? extends T> initializer) {
+        this.initializer = initializer;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get() {
+        Object current = VALUE.getAcquire(this);
+        if (current != null) {
+            return (T) current;
+        }
+        return initialize();
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized T initialize() {
+        Object current = VALUE.getAcquire(this);
+        if (current != null) {
+            contended.increment();
+            return (T) current;
+        }
+        attempts++;
+        long start = System.nanoTime();
+        try {
+            T created = Objects.requireNonNull(initializer.get(), "initializer returned null");
+            initNanos = System.nanoTime() - start;
+            VALUE.setRelease(this, created);
+            return created;
+        } catch (RuntimeException | Error e) {
+            failures++;
+            throw e;
+        }
+    }
+
+    public boolean isInitialized() {
+        return VALUE.getAcquire(this) != null;
+    }
+
+    public synchronized long getInitNanos() {
+        return initNanos;
+    }
+
+    public synchronized int getAttempts() {
+        return attempts;
+    }
+
+    public synchronized int getFailures() {
+        return failures;
+    }
+
+    public long getContended() {
+        return contended.sum();
+    }
+
+}
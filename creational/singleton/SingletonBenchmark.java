@@ -0,0 +1,76 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// getInstance() throughput of every singleton variant in this folder from 1 to 64 threads.
+// Plain main instead of JMH because this folder has no build file; numbers are rough but comparable.
+// Run: java SingletonBenchmark [millisPerRun]
+public class SingletonBenchmark {
+    // results are written here so the JIT cannot drop the getInstance calls
+    static volatile int blackhole;
+
+    public static void main(String[] args) throws InterruptedException {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 500;
+        String[] names = {"basic (unsafe)", "synchronized", "double check", "bill pugh holder", "Lazy<T>"};
+        List<Supplier<Object>> variants = new ArrayList<>();
+        variants.add(DatabaseConnection::getInstance);
+        variants.add(DatabaseConnectionThreadSafe::getInstance);
+        variants.add(DatabaseConnectionThreadSafeDoubleCheckLock::getInstance);
+        variants.add(DatabaseConnectionBillPush::getInstance);
+        variants.add(DatabaseConnectionLazy::getInstance);
+
+        System.out.printf("%-18s", "threads");
+        for (int threads = 1; threads <= 64; threads *= 2) {
+            System.out.printf("%14d", threads);
+        }
+        System.out.println("   (million getInstance calls per second)");
+        for (int v = 0; v < variants.size(); v++) {
+            run(variants.get(v), 1, millis); // warm-up
+            System.out.printf("%-18s", names[v]);
+            for (int threads = 1; threads <= 64; threads *= 2) {
+                System.out.printf("%14.1f", run(variants.get(v), threads, millis) / 1e6 * 1000 / millis);
+            }
+            System.out.println();
+        }
+        Lazy<DatabaseConnectionLazy> holder = DatabaseConnectionLazy.holder();
+        System.out.printf("Lazy<T>: init took %d us, attempts %d, failures %d, contended %d%n",
+                holder.getInitNanos() / 1000, holder.getAttempts(), holder.getFailures(), holder.getContended());
+    }
+
+    private static long run(Supplier<Object> getInstance, int threads, long millis) throws InterruptedException {
+        LongAdder calls = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        long[] deadline = new long[1];
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long done = 0;
+                int sink = 0;
+                while (System.nanoTime() < deadline[0]) {
+                    for (int i = 0; i < 1000; i++) {
+                        sink += System.identityHashCode(getInstance.get()) & 1;
+                    }
+                    done += 1000;
+                }
+                calls.add(done);
+                blackhole += sink;
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        deadline[0] = System.nanoTime() + millis * 1_000_000L;
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return calls.sum();
+    }
+
+}
@@ -4,9 +4,11 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class AppConfig {
     @Bean
+    @WarmUp
     public DatabaseService databaseService() {
         return new DatabaseService();
     }
 }
 
 //Bean is bydefault singleton in springboot here we are creating a bean of DatabaseService class
+//@WarmUp: with startup.optimize=true it is created after startup instead of during it
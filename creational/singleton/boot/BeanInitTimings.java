@@ -0,0 +1,84 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+// Measures every singleton from just before its constructor runs until its init callbacks are done.
+// The time of a bean includes the beans it depends on that were created for it.
+// Beans created during refresh are printed once the application is ready, warmed up beans by ParallelWarmUp.
+// Runs before every other ready listener: ParallelWarmUp must not create a bean before `ready` is set,
+// or it would be counted as created during startup.
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class BeanInitTimings implements InstantiationAwareBeanPostProcessor, ApplicationListener<ApplicationReadyEvent> {
+    private final Map<String, Long> startNanos = new ConcurrentHashMap<>();
+    private final Map<String, Long> startupNanos = new ConcurrentHashMap<>();
+    private final Map<String, Long> warmUpNanos = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+        startNanos.put(beanName, System.nanoTime());
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Long start = startNanos.remove(beanName);
+        if (start != null) {
+            (ready ? warmUpNanos : startupNanos).put(beanName, System.nanoTime() - start);
+        }
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        ready = true;
+        print("created during startup", startupNanos);
+    }
+
+    // a bean whose creation failed never reaches postProcessAfterInitialization; drop the start time of
+    // it and of every dependency that failed with it
+    void discardFailed(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BeanCreationException) {
+                String beanName = ((BeanCreationException) cause).getBeanName();
+                if (beanName != null) {
+                    startNanos.remove(beanName);
+                }
+            }
+        }
+    }
+
+    void printWarmUp() {
+        print("warmed up after startup", warmUpNanos);
+    }
+
+    public Map<String, Long> getStartupNanos() {
+        return startupNanos;
+    }
+
+    public Map<String, Long> getWarmUpNanos() {
+        return warmUpNanos;
+    }
+
+    private static void print(String title, Map<String, Long> timings) {
+        List<Map.Entry<String, Long>> slowestFirst = new ArrayList<>(timings.entrySet());
+        slowestFirst.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        long total = 0;
+        for (Map.Entry<String, Long> timing : slowestFirst) {
+            total += timing.getValue();
+        }
+        System.out.printf("%d beans %s:%n", slowestFirst.size(), title);
+        for (Map.Entry<String, Long> timing : slowestFirst) {
+            System.out.printf("  %8.1f ms  %s%n", timing.getValue() / 1e6, timing.getKey());
+        }
+        System.out.printf("  %8.1f ms  total (dependencies counted in their parent too)%n", total / 1e6);
+    }
+}
@@ -0,0 +1,9 @@
+public class DatabaseService {
+    public DatabaseService() {
+        System.out.println("DatabaseService Initialized.");
+    }
+
+    public void connect() {
+        System.out.println("Connected to Database.");
+    }
+}
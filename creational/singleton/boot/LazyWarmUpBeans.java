@@ -0,0 +1,32 @@
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.type.MethodMetadata;
+
+// Marks every @WarmUp bean definition as lazy so context refresh does not create it.
+// Only the definition metadata is read, so no bean class is loaded or instantiated here.
+public class LazyWarmUpBeans implements BeanFactoryPostProcessor {
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(name);
+            if (isWarmUp(definition)) {
+                definition.setLazyInit(true);
+            }
+        }
+    }
+
+    static boolean isWarmUp(BeanDefinition definition) {
+        if (!(definition instanceof AnnotatedBeanDefinition)) {
+            return false;
+        }
+        AnnotatedBeanDefinition annotated = (AnnotatedBeanDefinition) definition;
+        // @Bean methods carry the annotation on the factory method, @Component classes on the class
+        MethodMetadata factoryMethod = annotated.getFactoryMethodMetadata();
+        if (factoryMethod != null) {
+            return factoryMethod.isAnnotated(WarmUp.class.getName());
+        }
+        return annotated.getMetadata().hasAnnotation(WarmUp.class.getName());
+    }
+}
@@ -0,0 +1,73 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+// Creates the lazy @WarmUp singletons once the application is ready, a few at a time on a small
+// bounded pool, so the first request rarely pays for them and startup does not wait for them.
+// Beans that depend on each other still work: getBean() creates the dependency first.
+// Note: before Spring Framework 6.2 singleton creation holds one global lock, so the beans are
+// created one after another there, but still off the startup path.
+// Ordered after BeanInitTimings, which has to see the application ready first.
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class ParallelWarmUp implements ApplicationListener<ApplicationReadyEvent> {
+    private final ConfigurableListableBeanFactory beanFactory;
+    private final BeanInitTimings timings;
+    private final int threads;
+
+    public ParallelWarmUp(ConfigurableListableBeanFactory beanFactory, BeanInitTimings timings, int threads) {
+        this.beanFactory = beanFactory;
+        this.timings = timings;
+        this.threads = threads;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        List<String> names = new ArrayList<>();
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            if (LazyWarmUpBeans.isWarmUp(beanFactory.getBeanDefinition(name)) && !beanFactory.containsSingleton(name)) {
+                names.add(name);
+            }
+        }
+        if (names.isEmpty()) {
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        // the queue holds every warm-up bean, so nothing is rejected and no bean is created on the
+        // thread that publishes the ready event
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(names.size()), runnable -> {
+                    Thread thread = new Thread(runnable, "bean-warm-up-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        long start = System.nanoTime();
+        CompletableFuture<?>[] warmUps = new CompletableFuture<?>[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            warmUps[i] = CompletableFuture.runAsync(() -> beanFactory.getBean(name), executor)
+                    .exceptionally(e -> {
+                        // the bean is created again (and fails loudly) on first real use
+                        timings.discardFailed(e);
+                        System.out.println("Warm up of " + name + " failed: " + e.getCause());
+                        return null;
+                    });
+        }
+        CompletableFuture.allOf(warmUps).whenComplete((ignored, e) -> {
+            executor.shutdown();
+            System.out.printf("Warm up of %d beans on %d threads took %.1f ms%n",
+                    names.size(), threads, (System.nanoTime() - start) / 1e6);
+            timings.printWarmUp();
+        });
+    }
+}
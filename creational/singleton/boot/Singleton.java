@@ -1,6 +1,7 @@
 import org.springframework.stereotype.Component;
 
 @Component
+@WarmUp
 public class Singleton {
     public Singleton() {
         System.out.println("DatabaseService Initialized.");
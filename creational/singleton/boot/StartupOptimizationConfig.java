@@ -0,0 +1,30 @@
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// startup.optimize=true (default) makes @WarmUp beans lazy, creates them in parallel after the
+// application is ready and prints how long every bean took.
+// startup.optimize=false keeps the old behaviour: every singleton is created during startup.
+@Configuration
+@ConditionalOnProperty(name = "startup.optimize", havingValue = "true", matchIfMissing = true)
+public class StartupOptimizationConfig {
+
+    // static, post processors must exist before the other beans of this class
+    @Bean
+    public static LazyWarmUpBeans lazyWarmUpBeans() {
+        return new LazyWarmUpBeans();
+    }
+
+    @Bean
+    public static BeanInitTimings beanInitTimings() {
+        return new BeanInitTimings();
+    }
+
+    @Bean
+    public ParallelWarmUp parallelWarmUp(ConfigurableListableBeanFactory beanFactory, BeanInitTimings beanInitTimings,
+            @Value("${startup.warm-up.threads:4}") int threads) {
+        return new ParallelWarmUp(beanFactory, beanInitTimings, Math.max(1, threads));
+    }
+}
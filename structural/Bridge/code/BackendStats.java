@@ -0,0 +1,120 @@
+package structural.Bridge.code;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histogram and error count of one gateway over a sliding window: the current window plus
+// the one before it, so old behaviour is forgotten after two windows.
+// Latencies go into log buckets, four per power of two of microseconds (about 25% precision).
+public class BackendStats {
+    private static final int BUCKETS = 4 * 40;
+
+    private final long windowNanos;
+    private volatile Window current;
+    private volatile Window previous;
+
+    public BackendStats(long windowMillis) {
+        this.windowNanos = windowMillis * 1_000_000L;
+        long now = System.nanoTime();
+        this.current = new Window(now);
+        this.previous = new Window(now);
+    }
+
+    public void record(long nanos, boolean success) {
+        Window window = window(System.nanoTime());
+        window.latencies.incrementAndGet(bucket(nanos));
+        window.requests.increment();
+        if (!success) {
+            window.failures.increment();
+        }
+    }
+
+    public long requests() {
+        window(System.nanoTime());
+        return previous.requests.sum() + current.requests.sum();
+    }
+
+    public double errorRate() {
+        window(System.nanoTime());
+        long requests = previous.requests.sum() + current.requests.sum();
+        return requests == 0 ? 0 : (double) (previous.failures.sum() + current.failures.sum()) / requests;
+    }
+
+    // upper edge of the bucket the percentile falls in, 0 when there is no data
+    public long percentileNanos(double percentile) {
+        window(System.nanoTime());
+        Window older = previous;
+        Window newer = current;
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += older.latencies.get(i) + newer.latencies.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100 * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += older.latencies.get(i) + newer.latencies.get(i);
+            if (seen >= Math.max(1, rank)) {
+                return upperMicros(i) * 1000;
+            }
+        }
+        return upperMicros(BUCKETS - 1) * 1000;
+    }
+
+    public double percentileMillis(double percentile) {
+        return percentileNanos(percentile) / 1e6;
+    }
+
+    public synchronized void reset() {
+        long now = System.nanoTime();
+        previous = new Window(now);
+        current = new Window(now);
+    }
+
+    private Window window(long now) {
+        Window window = current;
+        if (now - window.startNanos < windowNanos) {
+            return window;
+        }
+        synchronized (this) {
+            window = current;
+            if (now - window.startNanos >= windowNanos) {
+                // idle for more than a whole window, the old one is too old to keep
+                previous = now - window.startNanos >= 2 * windowNanos ? new Window(now) : window;
+                current = new Window(now);
+            }
+            return current;
+        }
+    }
+
+    static int bucket(long nanos) {
+        long micros = Math.max(1, nanos / 1000);
+        if (micros < 4) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int index = 4 * (exponent - 1) + (int) ((micros >>> (exponent - 2)) & 3);
+        return Math.min(index, BUCKETS - 1);
+    }
+
+    static long upperMicros(int bucket) {
+        if (bucket < 4) {
+            return bucket + 1;
+        }
+        int exponent = bucket / 4 + 1;
+        return (5L + bucket % 4) << (exponent - 2);
+    }
+
+    private static class Window {
+        private final long startNanos;
+        private final AtomicLongArray latencies = new AtomicLongArray(BUCKETS);
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        Window(long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+}
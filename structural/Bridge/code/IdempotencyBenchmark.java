@@ -0,0 +1,62 @@
+package structural.Bridge.code;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+// What the idempotency layer costs on the hot path, against a gateway that does nothing:
+// direct call, first call with a new key (insert) and a retried key (replay), from 1 and more threads.
+// With more threads than cores the time per call also contains waiting for a core.
+public class IdempotencyBenchmark {
+    private static final int KEYS = 100_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        PaymentGateway noop = (paymentType, amount) -> { };
+        String[] keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "order-" + i;
+        }
+
+        System.out.printf("%8s %12s %12s %12s%n", "threads", "direct", "new key", "replay");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double[] nanos = new double[3];
+            for (int round = 0; round < 3; round++) {
+                nanos[0] = run(threads, operations, i -> noop.processPayment("card", 10));
+                // keys expire right away: every call is a miss, a new entry and an eviction
+                IdempotentPaymentGateway fresh = new IdempotentPaymentGateway(noop, KEYS, 0);
+                nanos[1] = run(threads, operations, i -> fresh.processPayment(keys[i % KEYS], "card", 10));
+                IdempotentPaymentGateway replay = new IdempotentPaymentGateway(noop, KEYS, 3_600_000);
+                for (String key : keys) {
+                    replay.processPayment(key, "card", 10);
+                }
+                nanos[2] = run(threads, operations, i -> replay.processPayment(keys[i % KEYS], "card", 10));
+            }
+            System.out.printf("%8d %9.1f ns %9.1f ns %9.1f ns%n", threads, nanos[0], nanos[1], nanos[2]);
+        }
+    }
+
+    interface Operation {
+        void run(int i);
+    }
+
+    // average nanoseconds per operation, as seen by one thread
+    private static double run(int threads, int operations, Operation operation) throws InterruptedException {
+        LongAdder nanos = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        int perThread = operations / threads;
+        for (int t = 0; t < threads; t++) {
+            int offset = t * 7919;
+            new Thread(() -> {
+                long start = System.nanoTime();
+                for (int i = 0; i < perThread; i++) {
+                    operation.run(offset + i);
+                }
+                nanos.add(System.nanoTime() - start);
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        return (double) nanos.sum() / (perThread * (long) threads);
+    }
+}
@@ -0,0 +1,161 @@
+package structural.Bridge.code;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Wraps any PaymentGateway so that a payment retried with the same idempotency key is charged once:
+// - a key that is already done returns the stored receipt (replay)
+// - a key that is still running waits for that call instead of starting a second one
+// - keys are kept for ttlMillis and at most maxKeys of them, the oldest finished ones are dropped first
+// A failed payment is not stored, so it can be retried with the same key.
+// Reusing a key for a different payment type or amount is rejected.
+public class IdempotentPaymentGateway implements PaymentGateway {
+    private final PaymentGateway paymentGateway;
+    private final int maxKeys;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // all entries live equally long, so insertion order is also expiry order; a forgotten entry stays
+    // queued until evict reaches it, so maxKeys is checked against the queue, not the map
+    private final Queue<Entry> oldestFirst = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+
+    public IdempotentPaymentGateway(PaymentGateway paymentGateway, int maxKeys, long ttlMillis) {
+        this.paymentGateway = paymentGateway;
+        this.maxKeys = maxKeys;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    // no key, no protection
+    @Override
+    public void processPayment(String paymentType, double amount) {
+        paymentGateway.processPayment(paymentType, amount);
+    }
+
+    public PaymentReceipt processPayment(String idempotencyKey, String paymentType, double amount) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(idempotencyKey);
+        if (entry != null && !entry.expired(now)) {
+            return existing(entry, paymentType, amount);
+        }
+        Entry mine = new Entry(idempotencyKey, paymentType, amount, now + ttlNanos);
+        while (true) {
+            Entry current = entries.putIfAbsent(idempotencyKey, mine);
+            if (current == null) {
+                break;
+            }
+            if (!current.expired(now)) {
+                return existing(current, paymentType, amount);
+            }
+            forget(current);
+        }
+        queued.incrementAndGet();
+        oldestFirst.add(mine);
+        evict(now);
+
+        calls.increment();
+        try {
+            paymentGateway.processPayment(paymentType, amount);
+            PaymentReceipt receipt = new PaymentReceipt(idempotencyKey, paymentType, amount, System.currentTimeMillis());
+            mine.result.complete(receipt);
+            return receipt;
+        } catch (Throwable e) {
+            // an Error too, or callers waiting on this key would block forever
+            forget(mine);
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private PaymentReceipt existing(Entry entry, String paymentType, double amount) {
+        if (!entry.paymentType.equals(paymentType) || Double.compare(entry.amount, amount) != 0) {
+            throw new IllegalArgumentException("Idempotency key " + entry.key + " was already used for "
+                    + entry.paymentType + " " + entry.amount);
+        }
+        if (entry.result.isDone()) {
+            replays.increment();
+        } else {
+            collapsed.increment();
+        }
+        try {
+            return entry.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // drops forgotten and expired keys and, above maxKeys, the oldest finished ones. A key still in
+    // flight is never dropped but skipped, so a slow payment does not hold back eviction behind it;
+    // the scan stops at the first finished key that may stay.
+    private void evict(long now) {
+        for (Entry entry : oldestFirst) {
+            boolean forgotten = entries.get(entry.key) != entry;
+            if (!forgotten && !entry.result.isDone()) {
+                continue;
+            }
+            if (!forgotten && !entry.expired(now) && queued.get() <= maxKeys) {
+                return;
+            }
+            if (oldestFirst.remove(entry)) {
+                queued.decrementAndGet();
+                forget(entry);
+            }
+        }
+    }
+
+    private void forget(Entry entry) {
+        entries.remove(entry.key, entry);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // payments actually sent to the gateway
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getReplays() {
+        return replays.sum();
+    }
+
+    // duplicates that arrived while the first call was still running
+    public long getCollapsed() {
+        return collapsed.sum();
+    }
+
+    private static class Entry {
+        private final String key;
+        private final String paymentType;
+        private final double amount;
+        private final long expiresAtNanos;
+        private final CompletableFuture<PaymentReceipt> result = new CompletableFuture<>();
+
+        Entry(String key, String paymentType, double amount, long expiresAtNanos) {
+            this.key = key;
+            this.paymentType = paymentType;
+            this.amount = amount;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        // a payment still running never expires, a slow call must not be sent twice
+        boolean expired(long now) {
+            return result.isDone() && now - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package structural.Bridge.code;
+
+// What a payment returned. A replayed request gets the same receipt as the first one.
+public class PaymentReceipt {
+    private final String idempotencyKey;
+    private final String paymentType;
+    private final double amount;
+    private final long processedAtMillis;
+
+    public PaymentReceipt(String idempotencyKey, String paymentType, double amount, long processedAtMillis) {
+        this.idempotencyKey = idempotencyKey;
+        this.paymentType = paymentType;
+        this.amount = amount;
+        this.processedAtMillis = processedAtMillis;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public String getPaymentType() {
+        return paymentType;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public long getProcessedAtMillis() {
+        return processedAtMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentReceipt{" + idempotencyKey + ", " + paymentType + ", " + amount + ", at " + processedAtMillis + "}";
+    }
+}
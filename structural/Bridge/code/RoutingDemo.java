@@ -0,0 +1,73 @@
+package structural.Bridge.code;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs payments through a RoutingPaymentGateway over two simulated gateways and changes their
+// behaviour between phases: normal, Stripe degraded, Stripe recovered, Stripe with a slow tail
+// (without and with hedging). Prints where the payments went and the latency the callers saw.
+public class RoutingDemo {
+    public static void main(String[] args) throws InterruptedException {
+        SimulatedGateway stripe = new SimulatedGateway("stripe", 20, 5, 0);
+        SimulatedGateway payPal = new SimulatedGateway("paypal", 40, 5, 0);
+        Map<String, PaymentGateway> gateways = new LinkedHashMap<>();
+        gateways.put("stripe", stripe);
+        gateways.put("paypal", payPal);
+        RoutingPaymentGateway router = new RoutingPaymentGateway(gateways, 1000, 10, 0.2, 200, 1000);
+        Payment payment = new CreditCardPayment(router);
+
+        phase("normal", router, 300);
+
+        stripe.setLatency(300, 50);
+        stripe.setFailureRate(0.5);
+        phase("stripe degraded", router, 300);
+
+        stripe.setLatency(20, 5);
+        stripe.setFailureRate(0);
+        Thread.sleep(2000);
+        phase("stripe recovered", router, 300);
+
+        stripe.setTail(0.1, 150);
+        phase("slow tail", router, 300);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        router.enableHedging(85, executor);
+        phase("slow tail, hedged", router, 300);
+        router.disableHedging();
+        executor.shutdown();
+
+        System.out.println("Bridge still works on top of it:");
+        payment.makePayment();
+    }
+
+    private static void phase(String name, RoutingPaymentGateway router, int payments) throws InterruptedException {
+        int threads = 8;
+        long[] latencies = new long[payments];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < payments) {
+                    long start = System.nanoTime();
+                    try {
+                        router.processPayment("credit card", 100.0);
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - start;
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        Arrays.sort(latencies);
+        System.out.printf("== %s: %d payments, %d failed, caller p50 %.1f ms, p99 %.1f ms%n%s%n%n", name, payments,
+                failed.get(), latencies[payments / 2] / 1e6, latencies[payments * 99 / 100] / 1e6, router);
+    }
+}
@@ -0,0 +1,341 @@
+package structural.Bridge.code;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// A PaymentGateway that spreads payments over several real gateways (backends):
+// - every backend keeps a latency histogram and error rate over the last two windows (BackendStats)
+// - a payment goes to the healthy backend with the lowest median latency; a backend without
+//   enough recent data is tried first, so a recovered backend gets traffic again
+// - a circuit breaker takes a backend out for openMillis when its error rate or its p90 is too high,
+//   then lets one probe payment through: success closes the breaker, failure opens it again, and a
+//   probe that has not answered within openMillis is given up so the next payment can probe
+// - optional hedging: when the first backend has not answered after its own hedge percentile
+//   latency, the payment is also sent to the next best backend and the first success wins
+// The breaker is an immutable state swapped by CAS, with an epoch that changes on every transition.
+// A call remembers the epoch it started in and its result only counts while that epoch is current,
+// so a call started before the breaker opened cannot decide the probe. Percentiles and health are
+// recomputed at most every CHECK_INTERVAL_NANOS by one thread, not on every result.
+//
+// Hedging can charge twice. Only enable it when the backends deduplicate the same payment
+// (for example two endpoints of one provider behind IdempotentPaymentGateway keys) or when the
+// losing payment is voided afterwards.
+public class RoutingPaymentGateway implements PaymentGateway {
+    private static final long CHECK_INTERVAL_NANOS = 5_000_000;
+
+    private final List<Backend> backends = new ArrayList<>();
+    private final int minRequests;
+    private final double maxErrorRate;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private volatile ExecutorService hedgeExecutor;
+    private volatile double hedgePercentile;
+
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public RoutingPaymentGateway(Map<String, ? extends PaymentGateway> gateways, long windowMillis, int minRequests,
+            double maxErrorRate, long slowCallMillis, long openMillis) {
+        gateways.forEach((name, gateway) -> backends.add(new Backend(name, gateway, windowMillis)));
+        this.minRequests = minRequests;
+        this.maxErrorRate = maxErrorRate;
+        this.slowCallNanos = slowCallMillis * 1_000_000L;
+        this.openNanos = openMillis * 1_000_000L;
+    }
+
+    // hedged requests run on the executor, e.g. percentile 95 sends the second request after the p95 latency
+    public void enableHedging(double percentile, ExecutorService executor) {
+        this.hedgePercentile = percentile;
+        for (Backend backend : backends) {
+            backend.refresh();
+        }
+        this.hedgeExecutor = executor;
+    }
+
+    public void disableHedging() {
+        this.hedgeExecutor = null;
+    }
+
+    @Override
+    public void processPayment(String paymentType, double amount) {
+        Permit primary = pick(null);
+        if (primary == null) {
+            rejected.increment();
+            throw new IllegalStateException("No healthy payment gateway available");
+        }
+        ExecutorService executor = hedgeExecutor;
+        long hedgeDelay = primary.backend.stats.requests() >= minRequests ? primary.backend.hedgeNanos : 0;
+        if (executor == null || hedgeDelay == 0) {
+            call(primary, paymentType, amount);
+            return;
+        }
+        processHedged(primary, hedgeDelay, executor, paymentType, amount);
+    }
+
+    private void processHedged(Permit primary, long hedgeDelay, ExecutorService executor, String paymentType, double amount) {
+        CompletableFuture<Backend> winner = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger();
+        launch(primary, executor, winner, running, paymentType, amount);
+        try {
+            winner.get(hedgeDelay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            Permit second = pick(primary.backend);
+            if (second != null) {
+                if (winner.isDone()) {
+                    second.backend.abandon(second.epoch);
+                } else {
+                    hedges.increment();
+                    launch(second, executor, winner, running, paymentType, amount);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for payment", e);
+        } catch (ExecutionException e) {
+            // the primary failed before the hedge delay, handled by join() below
+        }
+        try {
+            if (winner.join() != primary.backend) {
+                hedgeWins.increment();
+            }
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    // the first success completes the winner, the last failure fails it
+    private void launch(Permit permit, ExecutorService executor, CompletableFuture<Backend> winner, AtomicInteger running,
+            String paymentType, double amount) {
+        running.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    call(permit, paymentType, amount);
+                    winner.complete(permit.backend);
+                    running.decrementAndGet();
+                } catch (Throwable e) {
+                    // an Error too, or the caller waits on the winner forever
+                    if (running.decrementAndGet() == 0) {
+                        winner.completeExceptionally(e);
+                    }
+                    if (e instanceof Error) {
+                        throw (Error) e;
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // never sent, so it must not hold the backend's only probe slot
+            permit.backend.abandon(permit.epoch);
+            if (running.decrementAndGet() == 0) {
+                winner.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void call(Permit permit, String paymentType, double amount) {
+        Backend backend = permit.backend;
+        backend.routed.increment();
+        long start = System.nanoTime();
+        try {
+            backend.gateway.processPayment(paymentType, amount);
+        } catch (Throwable e) {
+            backend.onResult(permit.epoch, false, System.nanoTime() - start);
+            throw e;
+        }
+        backend.onResult(permit.epoch, true, System.nanoTime() - start);
+    }
+
+    // fastest backend that takes requests, backends without enough data first
+    private Permit pick(Backend exclude) {
+        List<Backend> candidates = new ArrayList<>(backends.size());
+        for (Backend backend : backends) {
+            if (backend != exclude && backend.mayTakeRequests()) {
+                candidates.add(backend);
+            }
+        }
+        candidates.sort(Comparator.comparingLong(Backend::score));
+        for (Backend backend : candidates) {
+            long epoch = backend.allowRequest();
+            if (epoch >= 0) {
+                return new Permit(backend, epoch);
+            }
+        }
+        return null;
+    }
+
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    // hedged payments where the second backend answered first
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    // payments refused because every circuit was open
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Backend backend : backends) {
+            text.append(String.format("%-8s %-9s routed %6d  p50 %6.1f ms  p99 %6.1f ms  errors %5.1f%%%n",
+                    backend.name, backend.breaker.get().state, backend.routed.sum(), backend.stats.percentileMillis(50),
+                    backend.stats.percentileMillis(99), backend.stats.errorRate() * 100));
+        }
+        text.append(String.format("hedges %d (won %d), rejected %d", getHedges(), getHedgeWins(), getRejected()));
+        return text.toString();
+    }
+
+    private enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    // a backend chosen for one call, with the breaker epoch the call was allowed in
+    private static class Permit {
+        private final Backend backend;
+        private final long epoch;
+
+        Permit(Backend backend, long epoch) {
+            this.backend = backend;
+            this.epoch = epoch;
+        }
+    }
+
+    // untilNanos: OPEN until then, a HALF_OPEN probe still running then is given up
+    private static class Breaker {
+        private final State state;
+        private final long epoch;
+        private final long untilNanos;
+
+        Breaker(State state, long epoch, long untilNanos) {
+            this.state = state;
+            this.epoch = epoch;
+            this.untilNanos = untilNanos;
+        }
+
+        boolean timeIsUp(long now) {
+            return state != State.CLOSED && now - untilNanos >= 0;
+        }
+    }
+
+    private class Backend {
+        private final String name;
+        private final PaymentGateway gateway;
+        private final BackendStats stats;
+        private final LongAdder routed = new LongAdder();
+        private final AtomicReference<Breaker> breaker = new AtomicReference<>(new Breaker(State.CLOSED, 0, 0));
+        private final AtomicLong nextCheckNanos = new AtomicLong(System.nanoTime());
+        // refreshed by the health check, read on every payment
+        private volatile long p50Nanos;
+        private volatile long p90Nanos;
+        private volatile long hedgeNanos;
+
+        Backend(String name, PaymentGateway gateway, long windowMillis) {
+            this.name = name;
+            this.gateway = gateway;
+            this.stats = new BackendStats(windowMillis);
+        }
+
+        long score() {
+            return stats.requests() < minRequests ? 0 : p50Nanos;
+        }
+
+        boolean mayTakeRequests() {
+            Breaker current = breaker.get();
+            return current.state == State.CLOSED || current.timeIsUp(System.nanoTime());
+        }
+
+        // the epoch the call runs in, or -1; an open breaker whose time is up lets exactly one probe through.
+        // A probe that neither answered nor failed within openNanos (it hangs, or died with an Error that
+        // never reached onResult) is replaced by a new one; the new epoch makes its late result not count.
+        long allowRequest() {
+            while (true) {
+                Breaker current = breaker.get();
+                if (current.state == State.CLOSED) {
+                    return current.epoch;
+                }
+                long now = System.nanoTime();
+                if (!current.timeIsUp(now)) {
+                    return -1;
+                }
+                Breaker probing = new Breaker(State.HALF_OPEN, current.epoch + 1, now + openNanos);
+                if (breaker.compareAndSet(current, probing)) {
+                    return probing.epoch;
+                }
+            }
+        }
+
+        // the call allowed in this epoch was never made: a probe goes back to open with its time already up,
+        // so the next payment can probe instead
+        void abandon(long epoch) {
+            Breaker current = breaker.get();
+            if (current.state == State.HALF_OPEN && current.epoch == epoch) {
+                breaker.compareAndSet(current, new Breaker(State.OPEN, epoch + 1, System.nanoTime()));
+            }
+        }
+
+        void onResult(long epoch, boolean success, long nanos) {
+            Breaker current = breaker.get();
+            if (current.epoch != epoch) {
+                // started under an earlier breaker state, it says nothing about this one
+                return;
+            }
+            stats.record(nanos, success);
+            if (current.state == State.HALF_OPEN) {
+                if (success && nanos < slowCallNanos) {
+                    if (breaker.compareAndSet(current, new Breaker(State.CLOSED, epoch + 1, 0))) {
+                        stats.reset();
+                        refresh();
+                    }
+                } else {
+                    open(current);
+                }
+            } else if (current.state == State.CLOSED) {
+                checkHealth(current);
+            }
+        }
+
+        // at most once per CHECK_INTERVAL_NANOS, by whichever thread wins the CAS; the others go on
+        private void checkHealth(Breaker current) {
+            long now = System.nanoTime();
+            long next = nextCheckNanos.get();
+            if (now - next < 0 || !nextCheckNanos.compareAndSet(next, now + CHECK_INTERVAL_NANOS)) {
+                return;
+            }
+            refresh();
+            if (stats.requests() >= minRequests && (stats.errorRate() > maxErrorRate || p90Nanos > slowCallNanos)) {
+                open(current);
+            }
+        }
+
+        void refresh() {
+            p50Nanos = stats.percentileNanos(50);
+            p90Nanos = stats.percentileNanos(90);
+            double percentile = hedgePercentile;
+            hedgeNanos = percentile > 0 ? stats.percentileNanos(percentile) : 0;
+        }
+
+        private void open(Breaker current) {
+            breaker.compareAndSet(current, new Breaker(State.OPEN, current.epoch + 1, System.nanoTime() + openNanos));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package structural.Bridge.code;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Local stand-in for a remote gateway: waits latency +- jitter, sometimes much longer (tail),
+// and fails with the given rate. Everything can be changed while payments are running.
+public class SimulatedGateway implements PaymentGateway {
+    private final String name;
+    private volatile long latencyMillis;
+    private volatile long jitterMillis;
+    private volatile double failureRate;
+    private volatile double tailRate;
+    private volatile long tailMillis;
+
+    public SimulatedGateway(String name, long latencyMillis, long jitterMillis, double failureRate) {
+        this.name = name;
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public void processPayment(String paymentType, double amount) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long millis = random.nextDouble() < tailRate
+                ? tailMillis
+                : Math.max(0, latencyMillis + (jitterMillis == 0 ? 0 : random.nextLong(-jitterMillis, jitterMillis + 1)));
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(name + " interrupted", e);
+        }
+        if (random.nextDouble() < failureRate) {
+            throw new IllegalStateException(name + " failed to process " + paymentType + " payment of " + amount);
+        }
+    }
+
+    public void setLatency(long latencyMillis, long jitterMillis) {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+    }
+
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    // a share of the calls takes tailMillis instead of the normal latency
+    public void setTail(double tailRate, long tailMillis) {
+        this.tailRate = tailRate;
+        this.tailMillis = tailMillis;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,198 @@
+package structural.Facade.code;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Micro-batching in front of an InventoryManager. Reservations are collected for up to windowMillis
+// (or until maxBatchSize orders are waiting), the quantities are added up per SKU and the whole batch
+// is reserved with one call to the real inventory instead of one call per order.
+// If the batch as a whole does not fit in stock (or the inventory throws for it, e.g. an unknown SKU),
+// it is split in halves and each half is tried as a batch again, down to single orders. An order is
+// only rejected when it really does not fit anymore and only an order that fails by itself gets the
+// exception; one bad order among N costs about 2 log N calls instead of N + 1.
+// The price is latency: under low load an order waits up to windowMillis for company.
+public class BatchingInventoryManager implements InventoryManager, AutoCloseable {
+    private static final Request STOP = new Request(Map.of());
+
+    private final InventoryManager inventoryManager;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread batcher;
+    private boolean closed;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder orders = new LongAdder();
+    private final LongAdder splitBatches = new LongAdder();
+
+    public BatchingInventoryManager(InventoryManager inventoryManager, int maxBatchSize, long windowMillis) {
+        this.inventoryManager = inventoryManager;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.batcher = new Thread(this::batchLoop, "inventory-batcher");
+        batcher.setDaemon(true);
+        batcher.start();
+    }
+
+    // completes with true when reserved, false when out of stock
+    public CompletableFuture<Boolean> submit(Map<String, Integer> quantities) {
+        for (Integer quantity : quantities.values()) {
+            if (quantity == null || quantity <= 0) {
+                throw new IllegalArgumentException("Quantities must be positive: " + quantities);
+            }
+        }
+        Request request = new Request(quantities);
+        synchronized (queue) {
+            if (closed) {
+                request.result.completeExceptionally(new IllegalStateException("inventory batcher is closed"));
+                return request.result;
+            }
+            queue.add(request);
+        }
+        return request.result;
+    }
+
+    @Override
+    public boolean reserve(Map<String, Integer> quantities) {
+        return submit(quantities).join();
+    }
+
+    @Override
+    public void release(Map<String, Integer> quantities) {
+        inventoryManager.release(quantities);
+    }
+
+    @Override
+    public void updateInventory() {
+        inventoryManager.updateInventory();
+    }
+
+    @Override
+    public void releaseInventory() {
+        inventoryManager.releaseInventory();
+    }
+
+    private void batchLoop() {
+        List<Request> batch = new ArrayList<>();
+        boolean stop = false;
+        while (!stop) {
+            try {
+                Request first = queue.take();
+                if (first == STOP) {
+                    break;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long left = deadline - System.nanoTime();
+                    // after the window only take what is already waiting
+                    Request next = left > 0 ? queue.poll(left, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == STOP) {
+                        stop = true;
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                stop = true;
+            }
+            if (!batch.isEmpty()) {
+                batches.increment();
+                orders.add(batch.size());
+                apply(batch);
+                batch.clear();
+            }
+        }
+        // interrupted: take no more orders and fail the ones still queued (after close() there are none)
+        List<Request> left = new ArrayList<>();
+        synchronized (queue) {
+            closed = true;
+            queue.drainTo(left);
+        }
+        for (Request request : left) {
+            request.result.completeExceptionally(new IllegalStateException("inventory batcher was stopped"));
+        }
+    }
+
+    private void apply(List<Request> batch) {
+        Map<String, Integer> total = new HashMap<>();
+        for (Request request : batch) {
+            request.quantities.forEach((sku, quantity) -> total.merge(sku, quantity, Integer::sum));
+        }
+        RuntimeException failure = null;
+        try {
+            if (inventoryManager.reserve(total)) {
+                for (Request request : batch) {
+                    request.result.complete(true);
+                }
+                return;
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        if (batch.size() == 1) {
+            Request request = batch.get(0);
+            if (failure != null) {
+                request.result.completeExceptionally(failure);
+            } else {
+                request.result.complete(false);
+            }
+            return;
+        }
+        splitBatches.increment();
+        // earlier orders first, so they keep their claim on the stock
+        int half = batch.size() / 2;
+        apply(batch.subList(0, half));
+        apply(batch.subList(half, batch.size()));
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public double getAverageBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0 : (double) orders.sum() / count;
+    }
+
+    // splits of a batch, or part of one, that did not fit in stock as a whole
+    public long getSplitBatches() {
+        return splitBatches.sum();
+    }
+
+    // orders already submitted are still reserved, later ones fail
+    @Override
+    public void close() {
+        synchronized (queue) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(STOP);
+        }
+        try {
+            batcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Request {
+        private final Map<String, Integer> quantities;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        Request(Map<String, Integer> quantities) {
+            this.quantities = quantities;
+        }
+    }
+}
@@ -1,9 +1,24 @@
 package structural.Facade.code;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public class Client {
     public static void main(String[] args) {
         ECommerceFacade eCommerceFacade = new ECommerceFacade( new InventoryManagerImpl(), new OrderFulfillmentImpl(), new PaymentProcessorImpl());
         eCommerceFacade.placeOrder();
+
+        // async mode: inventory and payment run at the same time, fulfillment after both
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        ECommerceFacade asyncFacade = new ECommerceFacade(new InventoryManagerImpl(), new OrderFulfillmentImpl(), new PaymentProcessorImpl(), executor);
+        System.out.println(asyncFacade.placeOrderAsync().join());
+
+        // payment declined: the reserved inventory is released again
+        ECommerceFacade declined = new ECommerceFacade(new InventoryManagerImpl(), new OrderFulfillmentImpl(), () -> {
+            throw new IllegalStateException("card declined");
+        }, executor);
+        System.out.println(declined.placeOrderAsync().join());
+        executor.shutdown();
     }
 
 }
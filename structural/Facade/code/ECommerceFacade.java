@@ -1,14 +1,30 @@
 package structural.Facade.code;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 public class ECommerceFacade {
     private InventoryManager inventoryManager;
     private OrderFulfillment orderFulfillment;
     private PaymentProcessor paymentProcessor;
+    private Executor executor;
 
     public ECommerceFacade(InventoryManager inventoryManager, OrderFulfillment orderFulfillment, PaymentProcessor paymentProcessor) {
+        this(inventoryManager, orderFulfillment, paymentProcessor, ForkJoinPool.commonPool());
+    }
+
+    // the subsystems usually block on I/O, so give placeOrderAsync() its own executor
+    public ECommerceFacade(InventoryManager inventoryManager, OrderFulfillment orderFulfillment, PaymentProcessor paymentProcessor,
+            Executor executor) {
         this.inventoryManager = inventoryManager;
         this.orderFulfillment = orderFulfillment;
         this.paymentProcessor = paymentProcessor;
+        this.executor = executor;
     }
 
     public void placeOrder() {
@@ -17,4 +33,91 @@ public class ECommerceFacade {
         paymentProcessor.processPayment();
     }
 
+    // Inventory and payment do not depend on each other and run at the same time,
+    // fulfillment needs both and starts when both succeeded. So an order takes about
+    // max(inventory, payment) + fulfillment instead of the sum of all three.
+    // If a step fails the steps that already succeeded are undone (release inventory, refund payment).
+    public CompletableFuture<OrderResult> placeOrderAsync() {
+        return placeOrderAsync(inventoryManager::updateInventory, inventoryManager::releaseInventory);
+    }
+
+    // same pipeline for an order of concrete items (sku -> quantity)
+    public CompletableFuture<OrderResult> placeOrderAsync(Map<String, Integer> items) {
+        return placeOrderAsync(() -> {
+            if (!inventoryManager.reserve(items)) {
+                throw new IllegalStateException("Out of stock: " + items);
+            }
+        }, () -> inventoryManager.release(items));
+    }
+
+    private CompletableFuture<OrderResult> placeOrderAsync(Runnable reserveInventory, Runnable releaseInventory) {
+        long start = System.nanoTime();
+        // in the order the steps finished
+        Map<String, Double> stepMillis = Collections.synchronizedMap(new LinkedHashMap<>());
+        CompletableFuture<Void> inventory = CompletableFuture.runAsync(() -> timed("inventory", reserveInventory, stepMillis), executor);
+        CompletableFuture<Void> payment = CompletableFuture.runAsync(() -> timed("payment", paymentProcessor::processPayment, stepMillis), executor);
+
+        // wait for both, also when one of them failed, so we know what has to be undone
+        return CompletableFuture.allOf(inventory, payment)
+                .handle((ignored, e) -> e)
+                .thenCompose(e -> {
+                    if (e == null) {
+                        return CompletableFuture.runAsync(() -> timed("fulfillment", orderFulfillment::fulfillOrder, stepMillis), executor)
+                                .handle((done, fulfillmentError) -> {
+                                    if (fulfillmentError == null) {
+                                        return result(start, null, null, stepMillis);
+                                    }
+                                    compensate("release inventory", releaseInventory, stepMillis, fulfillmentError);
+                                    compensate("refund payment", paymentProcessor::refundPayment, stepMillis, fulfillmentError);
+                                    return result(start, "fulfillment", fulfillmentError, stepMillis);
+                                });
+                    }
+                    Throwable error = null;
+                    String failedStep = null;
+                    if (inventory.isCompletedExceptionally()) {
+                        failedStep = "inventory";
+                        error = causeOf(inventory);
+                    } else {
+                        compensate("release inventory", releaseInventory, stepMillis, e);
+                    }
+                    if (payment.isCompletedExceptionally()) {
+                        failedStep = failedStep == null ? "payment" : failedStep + " and payment";
+                        error = error == null ? causeOf(payment) : error;
+                    } else {
+                        compensate("refund payment", paymentProcessor::refundPayment, stepMillis, e);
+                    }
+                    return CompletableFuture.completedFuture(result(start, failedStep, error, stepMillis));
+                });
+    }
+
+    private static void timed(String step, Runnable action, Map<String, Double> stepMillis) {
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            stepMillis.put(step, (System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    // a failing compensation must not hide the original failure, it is attached to it instead
+    private static void compensate(String step, Runnable action, Map<String, Double> stepMillis, Throwable failure) {
+        try {
+            timed(step, action, stepMillis);
+        } catch (RuntimeException e) {
+            unwrap(failure).addSuppressed(e);
+        }
+    }
+
+    private static Throwable causeOf(CompletableFuture<?> future) {
+        return future.handle((ignored, e) -> unwrap(e)).join();
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static OrderResult result(long start, String failedStep, Throwable error, Map<String, Double> stepMillis) {
+        return new OrderResult(failedStep == null, failedStep, unwrap(error), stepMillis, (System.nanoTime() - start) / 1e6);
+    }
+
 }
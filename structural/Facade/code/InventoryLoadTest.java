@@ -0,0 +1,121 @@
+package structural.Facade.code;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.atomic.LongAdder;
+
+// Flash sale load test: many threads order 1-3 of a few hot SKUs.
+// Compares one inventory write per order with the BatchingInventoryManager and checks afterwards
+// that no stock was lost or sold twice.
+public class InventoryLoadTest {
+    private static final int SKUS = 20;
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 2000;
+        // every write to the store costs this much, like a round trip to a database
+        long writeMicros = args.length > 2 ? Long.parseLong(args[2]) : 100;
+
+        StockStore direct = new StockStore(writeMicros);
+        run("per order", threads, millis, direct, direct);
+
+        StockStore store = new StockStore(writeMicros);
+        BatchingInventoryManager batching = new BatchingInventoryManager(store, 256, 2);
+        run("batched", threads, millis, batching, store);
+        System.out.printf("  %d batches, %.1f orders per batch, %d split%n",
+                batching.getBatches(), batching.getAverageBatchSize(), batching.getSplitBatches());
+        batching.close();
+    }
+
+    private static void run(String name, int threads, long millis, InventoryManager inventory, StockStore store)
+            throws InterruptedException {
+        LongAdder accepted = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        LongAdder unitsSold = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    Map<String, Integer> order = new HashMap<>();
+                    int lines = 1 + random.nextInt(3);
+                    for (int i = 0; i < lines; i++) {
+                        order.merge("sku-" + random.nextInt(SKUS), 1 + random.nextInt(2), Integer::sum);
+                    }
+                    if (inventory.reserve(order)) {
+                        accepted.increment();
+                        order.values().forEach(unitsSold::add);
+                    } else {
+                        rejected.increment();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        System.out.printf("%-10s %,12.0f orders/s  (%,d accepted, %,d out of stock, %,d store writes)%n",
+                name, (accepted.sum() + rejected.sum()) * 1000.0 / millis, accepted.sum(), rejected.sum(), store.writes);
+        if (store.initialUnits() - store.units() != unitsSold.sum() || store.units() < 0) {
+            throw new AssertionError("stock does not add up: sold " + unitsSold.sum() + " but store lost "
+                    + (store.initialUnits() - store.units()));
+        }
+    }
+
+    // the simplest correct inventory: one lock, one simulated write per call
+    static class StockStore implements InventoryManager {
+        private final long[] stock = new long[SKUS];
+        private final long writeNanos;
+        private long writes;
+
+        StockStore(long writeMicros) {
+            this.writeNanos = writeMicros * 1000;
+            for (int i = 0; i < SKUS; i++) {
+                stock[i] = 1_000_000;
+            }
+        }
+
+        @Override
+        public synchronized boolean reserve(Map<String, Integer> quantities) {
+            writes++;
+            LockSupport.parkNanos(writeNanos);
+            for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+                if (stock[index(line.getKey())] < line.getValue()) {
+                    return false;
+                }
+            }
+            quantities.forEach((sku, quantity) -> stock[index(sku)] -= quantity);
+            return true;
+        }
+
+        @Override
+        public synchronized void release(Map<String, Integer> quantities) {
+            writes++;
+            LockSupport.parkNanos(writeNanos);
+            quantities.forEach((sku, quantity) -> stock[index(sku)] += quantity);
+        }
+
+        @Override
+        public void updateInventory() {
+        }
+
+        synchronized long units() {
+            long units = 0;
+            for (long count : stock) {
+                units += count;
+            }
+            return units;
+        }
+
+        long initialUnits() {
+            return SKUS * 1_000_000L;
+        }
+
+        private static int index(String sku) {
+            return Integer.parseInt(sku.substring(4));
+        }
+    }
+}
@@ -1,6 +1,23 @@
 package structural.Facade.code;
 
+import java.util.Map;
+
 public interface InventoryManager {
     void updateInventory();
 
+    // undoes updateInventory() when a later step of the order fails
+    default void releaseInventory() {
+    }
+
+    // reserves every quantity (sku -> count) or nothing at all
+    default boolean reserve(Map<String, Integer> quantities) {
+        updateInventory();
+        return true;
+    }
+
+    // gives back what reserve() took
+    default void release(Map<String, Integer> quantities) {
+        releaseInventory();
+    }
+
 }
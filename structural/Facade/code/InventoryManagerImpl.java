@@ -6,4 +6,9 @@ public class InventoryManagerImpl  implements InventoryManager {
         System.out.println("Updating inventory");
     }
 
+    @Override
+    public void releaseInventory() {
+        System.out.println("Inventory released");
+    }
+
 }
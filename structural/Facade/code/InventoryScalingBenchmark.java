@@ -0,0 +1,66 @@
+package structural.Facade.code;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Reservation throughput of ShardedInventoryManager with 1, 2, 4 ... threads, each thread reserving
+// one unit of a random SKU in a loop. Ends with a check that sold + left = restocked for every run.
+// The numbers only scale as far as the machine has cores.
+public class InventoryScalingBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : 2 * Runtime.getRuntime().availableProcessors();
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+        int skuCount = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        String[] skus = new String[skuCount];
+        for (int i = 0; i < skuCount; i++) {
+            skus[i] = "sku-" + i;
+        }
+
+        System.out.printf("%d cores, %d SKUs%n%8s %15s %10s%n", Runtime.getRuntime().availableProcessors(), skuCount,
+                "threads", "reservations/s", "speedup");
+        double single = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            run(skus, threads, millis / 2); // warm up
+            double perSecond = run(skus, threads, millis);
+            if (threads == 1) {
+                single = perSecond;
+            }
+            System.out.printf("%8d %,15.0f %9.2fx%n", threads, perSecond, perSecond / single);
+        }
+    }
+
+    private static double run(String[] skus, int threads, long millis) throws InterruptedException {
+        ShardedInventoryManager inventory = new ShardedInventoryManager();
+        long stockPerSku = 1L << 40;
+        for (String sku : skus) {
+            inventory.restock(sku, stockPerSku);
+        }
+        LongAdder reserved = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long count = 0;
+                while ((count & 1023) != 0 || System.nanoTime() < deadline) {
+                    if (inventory.reserve(skus[random.nextInt(skus.length)], 1)) {
+                        count++;
+                    }
+                }
+                reserved.add(count);
+                done.countDown();
+            }).start();
+        }
+        done.await();
+
+        long left = 0;
+        for (long available : inventory.snapshot().values()) {
+            left += available;
+        }
+        if (left + reserved.sum() != stockPerSku * skus.length) {
+            throw new AssertionError("stock does not add up after " + reserved.sum() + " reservations");
+        }
+        return reserved.sum() * 1000.0 / millis;
+    }
+}
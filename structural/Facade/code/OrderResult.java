@@ -0,0 +1,53 @@
+package structural.Facade.code;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Outcome of ECommerceFacade.placeOrderAsync(): success or the failed step, and how long every step
+// (including compensations) took. totalMillis is the wall clock time of the whole order.
+public class OrderResult {
+    private final boolean success;
+    private final String failedStep;
+    private final Throwable error;
+    private final Map<String, Double> stepMillis;
+    private final double totalMillis;
+
+    OrderResult(boolean success, String failedStep, Throwable error, Map<String, Double> stepMillis, double totalMillis) {
+        this.success = success;
+        this.failedStep = failedStep;
+        this.error = error;
+        this.stepMillis = Collections.unmodifiableMap(new LinkedHashMap<>(stepMillis));
+        this.totalMillis = totalMillis;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getFailedStep() {
+        return failedStep;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public Map<String, Double> getStepMillis() {
+        return stepMillis;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(success ? "Order placed" : "Order failed at " + failedStep + ": " + error);
+        text.append(String.format(" in %.1f ms", totalMillis));
+        for (Map.Entry<String, Double> step : stepMillis.entrySet()) {
+            text.append(String.format("%n  %-22s %.1f ms", step.getKey(), step.getValue()));
+        }
+        return text.toString();
+    }
+}
@@ -3,4 +3,8 @@ package structural.Facade.code;
 public interface PaymentProcessor {
     void processPayment();
 
+    // undoes processPayment() when a later step of the order fails
+    default void refundPayment() {
+    }
+
 }
@@ -6,4 +6,9 @@ public class PaymentProcessorImpl implements PaymentProcessor {
         System.out.println("Payment processed successfully");
     }
 
+    @Override
+    public void refundPayment() {
+        System.out.println("Payment refunded");
+    }
+
 }
@@ -0,0 +1,98 @@
+package structural.Facade.code;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Checks that ShardedInventoryManager.reserve(Map) takes every line or nothing, also when a line is
+// invalid (zero, negative or null quantity) and the lines before it would fit, and that under
+// concurrent orders with such lines mixed in no stock is lost or sold twice.
+// Run: java structural.Facade.code.ShardedInventoryCheck [threads] [ordersPerThread]
+public class ShardedInventoryCheck {
+    private static final int SKUS = 8;
+    private static final long STOCK = 1_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int ordersPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        ShardedInventoryManager inventory = new ShardedInventoryManager();
+        inventory.restock("apple", 10);
+        inventory.restock("pear", 10);
+        // insertion order puts the valid line first, so it would be taken before the bad one is seen
+        checkRejected(inventory, order("apple", 3, "pear", 0));
+        checkRejected(inventory, order("apple", 3, "pear", -1));
+        checkRejected(inventory, order("apple", 3, "pear", null));
+        check(!inventory.reserve(order("apple", 3, "pear", 11)), "an order larger than the stock was reserved");
+        check(inventory.available("apple") == 10 && inventory.available("pear") == 10,
+                "stock changed by orders that were not reserved: " + inventory.snapshot());
+        check(inventory.reserve(order("apple", 3, "pear", 4)), "an order that fits was rejected");
+        check(inventory.available("apple") == 7 && inventory.available("pear") == 6, "wrong stock after a reservation");
+
+        ShardedInventoryManager shared = new ShardedInventoryManager();
+        for (int i = 0; i < SKUS; i++) {
+            shared.restock("sku-" + i, STOCK);
+        }
+        LongAdder unitsSold = new LongAdder();
+        LongAdder invalid = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int n = 0; n < ordersPerThread; n++) {
+                    Map<String, Integer> order = new LinkedHashMap<>();
+                    int lines = 1 + random.nextInt(3);
+                    for (int i = 0; i < lines; i++) {
+                        order.put("sku-" + random.nextInt(SKUS), 1 + random.nextInt(3));
+                    }
+                    if (random.nextInt(10) == 0) {
+                        order.put("sku-" + random.nextInt(SKUS), random.nextBoolean() ? 0 : null);
+                    }
+                    try {
+                        if (shared.reserve(order)) {
+                            order.values().forEach(unitsSold::add);
+                        }
+                    } catch (IllegalArgumentException e) {
+                        invalid.increment();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        long left = 0;
+        for (long available : shared.snapshot().values()) {
+            left += available;
+        }
+        check(left + unitsSold.sum() == SKUS * STOCK,
+                "stock lost or sold twice: " + left + " left + " + unitsSold.sum() + " sold != " + SKUS * STOCK);
+        System.out.printf("%,d orders on %d threads, %,d invalid ones rejected, %,d units sold, no stock lost or sold twice%n",
+                (long) threads * ordersPerThread, threads, invalid.sum(), unitsSold.sum());
+    }
+
+    private static Map<String, Integer> order(String sku, Integer quantity, String otherSku, Integer otherQuantity) {
+        Map<String, Integer> order = new LinkedHashMap<>();
+        order.put(sku, quantity);
+        order.put(otherSku, otherQuantity);
+        return order;
+    }
+
+    private static void checkRejected(ShardedInventoryManager inventory, Map<String, Integer> order) {
+        try {
+            inventory.reserve(order);
+        } catch (IllegalArgumentException e) {
+            check(inventory.available("apple") == 10, "stock was taken before the invalid line " + order + " was seen");
+            return;
+        }
+        throw new AssertionError("invalid order was accepted: " + order);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+}
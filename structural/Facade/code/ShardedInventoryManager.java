@@ -0,0 +1,172 @@
+package structural.Facade.code;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// In-memory stock store for many threads.
+// SKUs are spread over shards by hash. Each stock counter is a plain long in an AtomicLongArray,
+// one counter per cache line so threads working on different SKUs do not slow each other down.
+// A reservation is a compare-and-decrement loop on the counter: no lock, and the counter can never
+// go below zero, so the same unit is never sold twice.
+// The shard lock is only taken to add a new SKU.
+public class ShardedInventoryManager implements InventoryManager {
+    private static final int CHUNK_SIZE = 1024;
+    // longs per counter, 8 * 8 bytes = one 64 byte cache line
+    private static final int STRIDE = 8;
+
+    private final Shard[] shards;
+    private final int mask;
+
+    public ShardedInventoryManager() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    public ShardedInventoryManager(int shardCount) {
+        int size = Integer.highestOneBit(Math.max(1, shardCount - 1)) << 1;
+        shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard();
+        }
+        mask = size - 1;
+    }
+
+    public boolean reserve(String sku, long quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
+        Shard shard = shardOf(sku);
+        Integer slot = shard.slots.get(sku);
+        return slot != null && shard.tryTake(slot, quantity);
+    }
+
+    // Takes every line or nothing: when a line does not fit, the lines already taken are put back.
+    // Never oversells, but for that short moment another order may see the lower stock and be rejected.
+    // Every line is checked before any stock is taken, so a bad quantity throws with nothing taken.
+    @Override
+    public boolean reserve(Map<String, Integer> quantities) {
+        for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+            Integer quantity = line.getValue();
+            if (line.getKey() == null || quantity == null || quantity <= 0) {
+                throw new IllegalArgumentException("Every line needs a SKU and a positive quantity: " + quantities);
+            }
+        }
+        List<Map.Entry<String, Integer>> taken = new ArrayList<>(quantities.size());
+        boolean reserved = false;
+        try {
+            for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+                if (!reserve(line.getKey(), line.getValue())) {
+                    return false;
+                }
+                taken.add(line);
+            }
+            reserved = true;
+            return true;
+        } finally {
+            // also when something throws half way, e.g. the map changed under us
+            if (!reserved) {
+                for (Map.Entry<String, Integer> back : taken) {
+                    restock(back.getKey(), back.getValue());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void release(Map<String, Integer> quantities) {
+        quantities.forEach(this::restock);
+    }
+
+    public void restock(String sku, long quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must not be negative: " + quantity);
+        }
+        Shard shard = shardOf(sku);
+        shard.add(shard.slotOf(sku), quantity);
+    }
+
+    public void restock(Map<String, ? extends Number> quantities) {
+        quantities.forEach((sku, quantity) -> restock(sku, quantity.longValue()));
+    }
+
+    public long available(String sku) {
+        Shard shard = shardOf(sku);
+        Integer slot = shard.slots.get(sku);
+        return slot == null ? 0 : shard.get(slot);
+    }
+
+    // Reads every counter while writers keep going. Each value is exact at the moment it was read,
+    // the map as a whole is not one point in time.
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new HashMap<>();
+        for (Shard shard : shards) {
+            shard.slots.forEach((sku, slot) -> snapshot.put(sku, shard.get(slot)));
+        }
+        return snapshot;
+    }
+
+    // the old call has no order data, there is nothing to update
+    @Override
+    public void updateInventory() {
+    }
+
+    private Shard shardOf(String sku) {
+        int hash = sku.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    private static class Shard {
+        private final ConcurrentHashMap<String, Integer> slots = new ConcurrentHashMap<>();
+        // chunks are never copied or replaced, only new ones appended, so a CAS never hits a stale array
+        private volatile AtomicLongArray[] chunks = new AtomicLongArray[0];
+        private int size;
+
+        int slotOf(String sku) {
+            Integer slot = slots.get(sku);
+            return slot != null ? slot : addSku(sku);
+        }
+
+        private synchronized int addSku(String sku) {
+            Integer existing = slots.get(sku);
+            if (existing != null) {
+                return existing;
+            }
+            int slot = size;
+            if (slot / CHUNK_SIZE == chunks.length) {
+                AtomicLongArray[] grown = new AtomicLongArray[chunks.length + 1];
+                System.arraycopy(chunks, 0, grown, 0, chunks.length);
+                grown[chunks.length] = new AtomicLongArray(CHUNK_SIZE * STRIDE);
+                chunks = grown;
+            }
+            size++;
+            // published after the chunk exists, readers that find the slot also see the chunk
+            slots.put(sku, slot);
+            return slot;
+        }
+
+        boolean tryTake(int slot, long quantity) {
+            AtomicLongArray chunk = chunks[slot / CHUNK_SIZE];
+            int index = (slot % CHUNK_SIZE) * STRIDE;
+            while (true) {
+                long current = chunk.get(index);
+                if (current < quantity) {
+                    return false;
+                }
+                if (chunk.compareAndSet(index, current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+
+        void add(int slot, long quantity) {
+            chunks[slot / CHUNK_SIZE].getAndAdd((slot % CHUNK_SIZE) * STRIDE, quantity);
+        }
+
+        long get(int slot) {
+            return chunks[slot / CHUNK_SIZE].get((slot % CHUNK_SIZE) * STRIDE);
+        }
+    }
+}
@@ -2,4 +2,7 @@ package structural.Proxy.code;
 
 public interface AccessControl {
     void accessResource();
+
+    // returns the content of one resource, this is the call worth caching
+    String readResource(String resourceId);
 }
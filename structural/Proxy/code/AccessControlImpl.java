@@ -7,4 +7,9 @@ public class AccessControlImpl implements AccessControl {
         System.out.println("Accessing resource with access ");
     }
 
+    @Override
+    public String readResource(String resourceId) {
+        return "Content of " + resourceId;
+    }
+
 }
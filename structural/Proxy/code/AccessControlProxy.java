@@ -16,4 +16,12 @@ public class AccessControlProxy implements AccessControl{
             System.out.println("You do not have access to this resource");
         }   
     }
+
+    @Override
+    public String readResource(String resourceId) {
+        if(accessLevel.equals("admin")) {
+            return accessControl.readResource(resourceId);
+        }
+        throw new SecurityException("You do not have access to " + resourceId);
+    }
 }
@@ -0,0 +1,252 @@
+package structural.Proxy.code;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Proxy for a slow AccessControl:
+// - the real subject is only created on the first call that needs it
+// - readResource results are kept in a cache of about maxEntries, each entry lives ttlMillis
+// - when many threads miss on the same resource at once only one of them calls the real subject,
+//   the others wait for that result (single flight)
+// Failed loads are not cached, every waiting caller gets the same exception.
+// A hit is a ConcurrentHashMap read and takes no lock. Entries remember when they were last used and,
+// once the cache is an eighth over maxEntries, one thread evicts the least recently used back down
+// to maxEntries, so eviction costs O(log n) per insert on average.
+// invalidate() during a load keeps that load's result out of the cache.
+public class CachingAccessControlProxy implements AccessControl {
+    // last-use times closer than this are not rewritten, so a hot entry is not written on every hit
+    private static final long ACCESS_GRANULARITY_NANOS = 1_000_000;
+
+    private final Supplier<? extends AccessControl> factory;
+    private volatile AccessControl accessControl;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+    private final ReentrantLock evicting = new ReentrantLock();
+    private final ConcurrentHashMap<String, Load> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAccumulator maxLoadNanos = new LongAccumulator(Math::max, 0);
+
+    public CachingAccessControlProxy(int maxEntries, long ttlMillis) {
+        this(AccessControlImpl::new, maxEntries, ttlMillis);
+    }
+
+    public CachingAccessControlProxy(Supplier<? extends AccessControl> factory, int maxEntries, long ttlMillis) {
+        this.factory = factory;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public void accessResource() {
+        realSubject().accessResource();
+    }
+
+    @Override
+    public String readResource(String resourceId) {
+        String cached = cached(resourceId);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        Load mine = new Load();
+        Load running = loading.putIfAbsent(resourceId, mine);
+        if (running != null) {
+            collapsed.increment();
+            return await(running.future);
+        }
+        try {
+            // another thread may have finished loading between our miss and putIfAbsent
+            String value = cached(resourceId);
+            if (value == null) {
+                value = load(resourceId, mine);
+            }
+            mine.future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // errors too, or the waiters would hang on a future nobody completes
+            mine.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(resourceId, mine);
+        }
+    }
+
+    private String load(String resourceId, Load load) {
+        long start = System.nanoTime();
+        String value = realSubject().readResource(resourceId);
+        long now = System.nanoTime();
+        loads.increment();
+        loadNanos.add(now - start);
+        maxLoadNanos.accumulate(now - start);
+        Entry entry = new Entry(value, now + ttlNanos, now);
+        cache.put(resourceId, entry);
+        // invalidate() sets the flag before it removes, so either it removes this entry or we see the flag
+        if (load.invalidated) {
+            cache.remove(resourceId, entry);
+        } else if (cache.size() > maxEntries + Math.max(1, maxEntries / 8)) {
+            evictLeastRecentlyUsed();
+        }
+        return value;
+    }
+
+    private String cached(String resourceId) {
+        Entry entry = cache.get(resourceId);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - entry.expiresAtNanos >= 0) {
+            cache.remove(resourceId, entry);
+            return null;
+        }
+        if (now - entry.lastUsedNanos > ACCESS_GRANULARITY_NANOS) {
+            entry.lastUsedNanos = now;
+        }
+        return entry.value;
+    }
+
+    // one thread at a time, the others do not wait for it
+    private void evictLeastRecentlyUsed() {
+        if (!evicting.tryLock()) {
+            return;
+        }
+        try {
+            List<Map.Entry<String, Entry>> entries = new ArrayList<>(cache.entrySet());
+            int excess = entries.size() - maxEntries;
+            if (excess <= 0) {
+                return;
+            }
+            entries.sort((a, b) -> Long.compare(a.getValue().lastUsedNanos, b.getValue().lastUsedNanos));
+            for (int i = 0; i < excess; i++) {
+                Map.Entry<String, Entry> eldest = entries.get(i);
+                if (cache.remove(eldest.getKey(), eldest.getValue())) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evicting.unlock();
+        }
+    }
+
+    private static String await(CompletableFuture<String> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private AccessControl realSubject() {
+        AccessControl subject = accessControl;
+        if (subject == null) {
+            synchronized (this) {
+                subject = accessControl;
+                if (subject == null) {
+                    subject = factory.get();
+                    accessControl = subject;
+                }
+            }
+        }
+        return subject;
+    }
+
+    // a load already running for the resource still answers its callers, but its result is not cached
+    public void invalidate(String resourceId) {
+        Load running = loading.get(resourceId);
+        if (running != null) {
+            running.invalidated = true;
+        }
+        cache.remove(resourceId);
+    }
+
+    public boolean isSubjectCreated() {
+        return accessControl != null;
+    }
+
+    public double getHitRatio() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    // misses that waited for a load started by another thread instead of loading themselves
+    public long getCollapsed() {
+        return collapsed.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getAverageLoadMillis() {
+        long count = loads.sum();
+        return count == 0 ? 0 : loadNanos.sum() / 1e6 / count;
+    }
+
+    public double getMaxLoadMillis() {
+        return maxLoadNanos.get() / 1e6;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hit ratio %.2f, hits %d, misses %d, loads %d, collapsed %d, evictions %d, load avg %.2f ms max %.2f ms",
+                getHitRatio(), getHits(), getMisses(), getLoads(), getCollapsed(), getEvictions(),
+                getAverageLoadMillis(), getMaxLoadMillis());
+    }
+
+    private static class Entry {
+        private final String value;
+        private final long expiresAtNanos;
+        private volatile long lastUsedNanos;
+
+        Entry(String value, long expiresAtNanos, long lastUsedNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+            this.lastUsedNanos = lastUsedNanos;
+        }
+    }
+
+    // one single-flight load; invalidated when invalidate() ran while it was in flight
+    private static class Load {
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+        private volatile boolean invalidated;
+    }
+}
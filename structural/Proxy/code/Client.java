@@ -1,11 +1,37 @@
 package structural.Proxy.code;
 
 public class Client {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
         AccessControl accessControl = new AccessControlProxy("admin");
         accessControl.accessResource();
         AccessControl accessControl2 = new AccessControlProxy("user");
         accessControl2.accessResource();
-        
+
+        // caching proxy in front of a slow resource, 8 threads ask for the same 4 resources
+        CachingAccessControlProxy cachingProxy = new CachingAccessControlProxy(() -> new AccessControlImpl() {
+            @Override
+            public String readResource(String resourceId) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.readResource(resourceId);
+            }
+        }, 100, 60_000);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    cachingProxy.readResource("report-" + (i % 4));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.println(cachingProxy.readResource("report-0"));
+        System.out.println(cachingProxy);
     }
 }